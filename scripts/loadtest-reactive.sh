@@ -0,0 +1,98 @@
+#!/usr/bin/env bash
+# Compare the servlet stack with the reactive one (reactive profile) under the same load, at rising
+# client counts. The mix is three lookups by ID to one 100-order page. For each run it prints:
+#   - requests served per CPU second of the service process, i.e. throughput per core, which
+#     stays comparable when the load generator shares the machine
+#   - resident memory added per open connection: RSS under load minus RSS when idle, divided by
+#     the number of clients. The heap is fixed and pre-touched, so the difference is what each
+#     connection costs outside it: thread stacks on the servlet stack, buffers on Netty.
+# Requires a running Redis on localhost:6379. Usage: scripts/loadtest-reactive.sh [duration] [clients...]
+set -euo pipefail
+
+DURATION="${1:-30s}"
+shift || true
+CLIENT_COUNTS=("${@:-50 400 2000}")
+PORT=8080
+JAR=target/orders-microservice-1.0.0.jar
+ORDERS=100000
+WARMUP_SECONDS=10
+CLOCK_TICKS=$(getconf CLK_TCK)
+APP_PID=
+
+trap 'kill $APP_PID 2>/dev/null || true' EXIT
+
+cd "$(dirname "$0")/.."
+mvn -B -q package -DskipTests
+mvn -B -q -Ploadtest test-compile
+
+cpu_seconds() {
+    # utime + stime of the process, fields 14 and 15 of /proc/<pid>/stat
+    awk -v ticks="$CLOCK_TICKS" '{ printf "%.2f", ($14 + $15) / ticks }' "/proc/$1/stat"
+}
+
+rss_kb() {
+    awk '/^VmRSS/ { print $2 }' "/proc/$1/status"
+}
+
+threads() {
+    awk '/^Threads/ { print $2 }' "/proc/$1/status"
+}
+
+requests_served() {
+    curl -s "http://localhost:$PORT/actuator/prometheus" \
+        | awk '/^http_server_requests_seconds_count.*uri="\/api\/v1\/orders/ { sum += $2 } END { printf "%d", sum }'
+}
+
+load() {
+    local label="$1" clients="$2" duration="$3" warmup="$4"
+    mvn -B -q -Ploadtest exec:java -Dexec.args="--url http://localhost:$PORT --clients $clients \
+        --duration $duration --warmup $warmup --ids 1-$ORDERS --label $label \
+        --paths /api/v1/orders/{id},/api/v1/orders/{id},/api/v1/orders/{id},/api/v1/orders?limit=100&after={id}"
+}
+
+run() {
+    local label="$1" profiles="$2" clients="$3"
+    # Debug logging would dominate the CPU profile of both stacks
+    java -Xms512m -Xmx512m -XX:+AlwaysPreTouch -jar "$JAR" --server.port="$PORT" \
+        --spring.profiles.active="$profiles" --data-loader.synthetic-orders="$ORDERS" \
+        --admission-control.enabled=false --spring.jpa.show-sql=false --access-log.enabled=false \
+        --logging.level.com.example.orders=INFO --logging.level.org.springframework=INFO \
+        --logging.level.org.hibernate.SQL=INFO > "target/$label.log" 2>&1 &
+    APP_PID=$!
+    local pid=$APP_PID
+    # Ready once the synthetic orders are loaded and the cache warm-up is done
+    until curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null; do sleep 1; done
+    sleep 5 # let the indexes build
+    load "$label-jit-warmup" 20 10s 0s > /dev/null
+
+    local idle_rss idle_threads
+    idle_rss=$(rss_kb "$pid")
+    idle_threads=$(threads "$pid")
+    load "$label" "$clients" "$DURATION" "${WARMUP_SECONDS}s" &
+    local generator=$!
+    sleep "$WARMUP_SECONDS"
+    local cpu_before requests_before
+    cpu_before=$(cpu_seconds "$pid")
+    requests_before=$(requests_served)
+    sleep "${DURATION%s}"
+    local cpu_after requests_after busy_rss busy_threads
+    cpu_after=$(cpu_seconds "$pid")
+    requests_after=$(requests_served)
+    busy_rss=$(rss_kb "$pid")
+    busy_threads=$(threads "$pid")
+    wait "$generator"
+
+    awk -v label="$label" -v clients="$clients" -v requests=$((requests_after - requests_before)) \
+        -v cpu_before="$cpu_before" -v cpu_after="$cpu_after" -v idle="$idle_rss" -v busy="$busy_rss" \
+        -v idle_threads="$idle_threads" -v busy_threads="$busy_threads" 'BEGIN {
+            printf "[%s] %.0f requests per CPU second; RSS %d MB idle, %d MB with %d connections (%.1f KB each); threads %d idle, %d busy\n",
+                label, requests / (cpu_after - cpu_before), idle / 1024, busy / 1024, clients, (busy - idle) / clients, idle_threads, busy_threads
+        }'
+    kill "$pid"
+    wait "$pid" || true
+}
+
+for clients in ${CLIENT_COUNTS[*]}; do
+    run "servlet-$clients" default "$clients"
+    run "reactive-$clients" reactive "$clients"
+done
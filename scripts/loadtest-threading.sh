@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+# Compare the platform-thread baseline with the virtual-thread mode under the same load.
+# Requires a running Redis on localhost:6379. Usage: scripts/loadtest-threading.sh [clients] [duration]
+set -euo pipefail
+
+CLIENTS="${1:-1000}"
+DURATION="${2:-30s}"
+PORT=8080
+JAR=target/orders-microservice-1.0.0.jar
+
+cd "$(dirname "$0")/.."
+mvn -B -q package -DskipTests
+
+run() {
+    local label="$1" profiles="$2"
+    java -jar "$JAR" --server.port="$PORT" --spring.profiles.active="$profiles" > "target/$label.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null || true' RETURN
+    until curl -sf "http://localhost:$PORT/api/v1/orders/health" > /dev/null; do sleep 1; done
+    sleep 5 # let the sample data load and the indexes build
+    mvn -B -q -Ploadtest test-compile exec:java -Dexec.args="--url http://localhost:$PORT --clients $CLIENTS \
+        --duration $DURATION --warmup 10s --ids 1-5 --label $label"
+}
+
+run platform-threads default
+run virtual-threads virtual-threads
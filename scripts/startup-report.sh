@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# Cold start report: starts the service repeatedly as it starts today, with the faststart profile
+# alone, and with the faststart profile on the AOT-processed build with its CDS archive. For each
+# run it prints the time from launching the JVM to the first answered order request, the startup
+# time Spring Boot logs, and the resident memory once that request was answered.
+# Usage: scripts/startup-report.sh [runs]
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT=8080
+JAR=target/orders-microservice-1.0.0.jar
+FASTSTART_DIR=target/faststart
+APP_PID=
+
+trap 'kill $APP_PID 2>/dev/null || true' EXIT
+
+cd "$(dirname "$0")/.."
+LOG_DIR="$PWD/target"
+mvn -B -q -Pfaststart package -DskipTests
+
+millis() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+run() {
+    local label="$1" log="$LOG_DIR/startup-$1.log"
+    shift
+    local start
+    start=$(millis)
+    "$@" --server.port="$PORT" > "$log" 2>&1 &
+    APP_PID=$!
+    # A page of orders goes through the controller, the service and the database
+    until curl -sf "http://localhost:$PORT/api/v1/orders?limit=10" > /dev/null; do
+        kill -0 "$APP_PID" 2>/dev/null || { echo "[$label] exited, see $log"; exit 1; }
+        sleep 0.01
+    done
+    local first_request=$(( $(millis) - start ))
+    local rss
+    rss=$(awk '/^VmRSS/ { print $2 }' "/proc/$APP_PID/status")
+    until grep -q "Started OrdersApplication" "$log"; do sleep 0.1; done
+    local started
+    started=$(sed -n 's/.*Started OrdersApplication in \([0-9.]*\) seconds.*/\1/p' "$log")
+    kill "$APP_PID"
+    wait "$APP_PID" || true
+    echo "$label $first_request $started $((rss / 1024))"
+}
+
+results=$(
+    for i in $(seq "$RUNS"); do
+        run current java -jar "$JAR"
+        run faststart-profile java -jar "$JAR" --spring.profiles.active=faststart
+        (cd "$FASTSTART_DIR" && run faststart java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+            -jar orders-microservice.jar --spring.profiles.active=faststart)
+    done
+)
+
+echo "$results" | sort -k1,1 -k2,2n | awk -v runs="$RUNS" '
+    { first[$1] = first[$1] " " $2; started[$1] = started[$1] " " $3; rss[$1] = rss[$1] " " $4; n[$1]++
+      if (n[$1] == int((runs + 1) / 2)) { median[$1] = $2; median_started[$1] = $3; median_rss[$1] = $4 } }
+    END {
+        for (label in n) {
+            printf "[%s] median of %d runs: first request after %d ms, started in %s s, RSS %d MB\n",
+                label, n[label], median[label], median_started[label], median_rss[label]
+            printf "[%s] first request ms:%s\n", label, first[label]
+        }
+    }'
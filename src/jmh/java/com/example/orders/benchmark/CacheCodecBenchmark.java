@@ -0,0 +1,61 @@
+package com.example.orders.benchmark;
+
+import com.example.orders.cache.OrderResponseRedisSerializer;
+import com.example.orders.config.RedisConfig;
+import com.example.orders.dto.OrderResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis value codecs for cached orders, selected like cache.redis.serializer. The encoded size
+ * of one entry is printed once per fork as "bytes/entry".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheCodecBenchmark {
+
+    @Param({"json", "binary"})
+    private String codec;
+
+    private RedisSerializer<Object> serializer;
+    private OrderResponse order;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        RedisSerializer<Object> json = RedisConfig.jsonValueSerializer();
+        serializer = "binary".equals(codec) ? new OrderResponseRedisSerializer(json) : json;
+
+        order = new OrderResponse();
+        order.setId(1_234_567L);
+        order.setCustomerName("Jane Smith");
+        order.setAmount(new BigDecimal("299.99"));
+        order.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30, 45, 123_456_000));
+        order.setUpdatedAt(LocalDateTime.of(2024, 1, 15, 11, 0, 0, 987_654_000));
+
+        encoded = serializer.serialize(order);
+        System.out.printf("%n%s codec: %d bytes/entry%n", codec, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(order);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(encoded);
+    }
+}
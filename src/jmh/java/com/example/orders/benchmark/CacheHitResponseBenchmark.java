@@ -0,0 +1,88 @@
+package com.example.orders.benchmark;
+
+import com.example.orders.cache.OrderJsonRedisSerializer;
+import com.example.orders.cache.OrderResponseRedisSerializer;
+import com.example.orders.config.RedisConfig;
+import com.example.orders.dto.OrderJson;
+import com.example.orders.dto.OrderResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work per cache hit between the cached value and the response body: "pojo" caches
+ * {@link OrderResponse} objects (binary in Redis) and encodes them with Jackson on every hit,
+ * "preserialized" caches {@link OrderJson} and copies its bytes. Run with -prof gc for the
+ * allocation per hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheHitResponseBenchmark {
+
+    @Param({"pojo", "preserialized"})
+    private String cached;
+
+    private ObjectMapper httpMapper;
+    private RedisSerializer<Object> redisSerializer;
+    private Object localValue;
+    private byte[] redisValue;
+    private ByteArrayOutputStream responseBody;
+
+    @Setup
+    public void setUp() {
+        httpMapper = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        redisSerializer = new OrderJsonRedisSerializer(new OrderResponseRedisSerializer(RedisConfig.jsonValueSerializer()));
+
+        OrderResponse order = new OrderResponse();
+        order.setId(1_234_567L);
+        order.setCustomerName("Jane Smith");
+        order.setAmount(new BigDecimal("299.99"));
+        order.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30, 45, 123_456_000));
+        order.setUpdatedAt(LocalDateTime.of(2024, 1, 15, 11, 0, 0, 987_654_000));
+        order.setVersion(3L);
+
+        localValue = "preserialized".equals(cached) ? OrderJson.render(httpMapper, order) : order;
+        redisValue = redisSerializer.serialize(localValue);
+        responseBody = new ByteArrayOutputStream(512);
+    }
+
+    @Benchmark
+    public int localTierHit() throws IOException {
+        return writeBody(localValue);
+    }
+
+    @Benchmark
+    public int redisTierHit() throws IOException {
+        return writeBody(redisSerializer.deserialize(redisValue));
+    }
+
+    private int writeBody(Object value) throws IOException {
+        responseBody.reset();
+        if (value instanceof OrderJson json) {
+            responseBody.write(json.getJson());
+        } else {
+            httpMapper.writeValue(responseBody, value);
+        }
+        return responseBody.size();
+    }
+}
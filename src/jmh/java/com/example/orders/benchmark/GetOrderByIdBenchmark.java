@@ -0,0 +1,106 @@
+package com.example.orders.benchmark;
+
+import com.example.orders.OrdersApplication;
+import com.example.orders.cache.TwoTierCacheManager;
+import com.example.orders.dto.OrderRequest;
+import com.example.orders.dto.OrderJson;
+import com.example.orders.service.CacheService;
+import com.example.orders.service.OrderService;
+import com.example.orders.support.FakeRedisServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link OrderService#getOrderById} against embedded H2 and an in-process Redis
+ * stand-in, for each way the lookup can be answered: local tier, Redis tier, or database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GetOrderByIdBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        FakeRedisServer redis;
+        ConfigurableApplicationContext context;
+        OrderService orderService;
+        CacheService cacheService;
+        TwoTierCacheManager cacheManager;
+        Long orderId;
+
+        @Setup(Level.Trial)
+        public void start() throws Exception {
+            redis = new FakeRedisServer();
+            context = new SpringApplicationBuilder(OrdersApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--spring.data.redis.port=" + redis.getPort(),
+                            "--spring.jpa.show-sql=false",
+                            "--logging.level.root=WARN",
+                            "--logging.level.com.example.orders=WARN",
+                            "--logging.level.org.springframework.web=WARN",
+                            "--logging.level.org.springframework.cache=WARN",
+                            "--logging.level.org.hibernate.SQL=WARN",
+                            "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+            orderService = context.getBean(OrderService.class);
+            cacheService = context.getBean(CacheService.class);
+            cacheManager = context.getBean(TwoTierCacheManager.class);
+
+            OrderRequest request = new OrderRequest();
+            request.setCustomerName("Benchmark Customer");
+            request.setAmount(new BigDecimal("123.45"));
+            orderId = orderService.createOrder(request).getId();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws Exception {
+            context.close();
+            redis.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdLocalTier {
+
+        @Setup(Level.Invocation)
+        public void dropLocalTier(Application app) {
+            app.cacheManager.invalidateAllLocal("orders");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        @Setup(Level.Invocation)
+        public void evict(Application app) {
+            app.cacheService.evictOrder(app.orderId);
+        }
+    }
+
+    @Benchmark
+    public OrderJson localTierHit(Application app) {
+        return app.orderService.getOrderById(app.orderId);
+    }
+
+    @Benchmark
+    public OrderJson redisTierHit(Application app, ColdLocalTier coldLocalTier) {
+        return app.orderService.getOrderById(app.orderId);
+    }
+
+    @Benchmark
+    public OrderJson cacheMiss(Application app, ColdCache coldCache) {
+        return app.orderService.getOrderById(app.orderId);
+    }
+}
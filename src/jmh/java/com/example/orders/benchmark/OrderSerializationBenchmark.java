@@ -0,0 +1,59 @@
+package com.example.orders.benchmark;
+
+import com.example.orders.dto.OrderResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP JSON encoding of an order, configured like spring.jackson in application.yml.
+ * Redis value codecs are covered by {@link CacheCodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderSerializationBenchmark {
+
+    private ObjectMapper httpMapper;
+    private OrderResponse order;
+    private byte[] httpJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        httpMapper = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        order = new OrderResponse();
+        order.setId(42L);
+        order.setCustomerName("Jane Smith");
+        order.setAmount(new BigDecimal("299.99"));
+        order.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30, 45, 123_456_000));
+        order.setUpdatedAt(LocalDateTime.of(2024, 1, 15, 11, 0, 0, 987_654_000));
+
+        httpJson = httpMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] httpSerialize() throws Exception {
+        return httpMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public OrderResponse httpDeserialize() throws Exception {
+        return httpMapper.readValue(httpJson, OrderResponse.class);
+    }
+}
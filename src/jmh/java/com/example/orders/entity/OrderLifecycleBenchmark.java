@@ -0,0 +1,40 @@
+package com.example.orders.entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the JPA lifecycle callbacks, which read the system clock on every insert and update
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderLifecycleBenchmark {
+
+    private final Order order = new Order(42L, "Jane Smith", new BigDecimal("299.99"), null, null, null);
+
+    @Benchmark
+    public Order prePersist() {
+        order.onCreate();
+        return order;
+    }
+
+    @Benchmark
+    public Order preUpdate() {
+        order.onUpdate();
+        return order;
+    }
+
+    @Benchmark
+    public LocalDateTime clockRead() {
+        return LocalDateTime.now();
+    }
+}
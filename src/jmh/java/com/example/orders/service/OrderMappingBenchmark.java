@@ -0,0 +1,36 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.entity.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping an {@link Order} entity to its {@link OrderResponse}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderMappingBenchmark {
+
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = new Order(42L, "Jane Smith", new BigDecimal("299.99"), LocalDateTime.now(), LocalDateTime.now(), 0L);
+    }
+
+    @Benchmark
+    public OrderResponse mapToResponse() {
+        return OrderService.mapToResponse(order);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.orders.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies invalidations published by other instances to the local tier of this instance
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationListener implements MessageListener {
+
+    private final TwoTierCacheManager cacheManager;
+    private final String instanceId;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int first = body.indexOf(CacheInvalidationPublisher.SEPARATOR);
+        int second = body.indexOf(CacheInvalidationPublisher.SEPARATOR, first + 1);
+        if (first < 0 || second < 0) {
+            log.warn("Ignoring malformed cache invalidation message: {}", body);
+            return;
+        }
+        if (first == instanceId.length() && body.startsWith(instanceId)) {
+            return;
+        }
+
+        String cacheName = body.substring(first + 1, second);
+        String key = body.substring(second + 1);
+        log.debug("Received remote invalidation for cache '{}' key '{}'", cacheName, key);
+        if (CacheInvalidationPublisher.CLEAR_ALL.equals(key)) {
+            cacheManager.invalidateAllLocal(cacheName);
+        } else {
+            cacheManager.invalidateLocal(cacheName, key);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.orders.cache;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * Broadcasts local-tier invalidations over Redis pub/sub. Every message carries the id of the
+ * publishing instance so that the sender can ignore its own echo. Nothing is sent while the
+ * Redis circuit breaker is open.
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    static final String CLEAR_ALL = "*";
+    static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final CircuitBreaker circuitBreaker;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel, CircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public void publish(String cacheName, String key) {
+        send(instanceId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+
+    public void publishClear(String cacheName) {
+        send(instanceId + SEPARATOR + cacheName + SEPARATOR + CLEAR_ALL);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    private void send(String message) {
+        try {
+            circuitBreaker.executeRunnable(() -> redisTemplate.convertAndSend(channel, message));
+        } catch (CallNotPermittedException ex) {
+            log.debug("Redis circuit breaker open, cache invalidation '{}' not published", message);
+        } catch (RuntimeException ex) {
+            // Other instances fall back to the short local TTL if a broadcast is lost
+            log.warn("Failed to publish cache invalidation '{}': {}", message, ex.getMessage());
+        }
+    }
+}
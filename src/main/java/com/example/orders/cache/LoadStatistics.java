@@ -0,0 +1,75 @@
+package com.example.orders.cache;
+
+import com.example.orders.dto.CacheLoadStats;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free counters for the loads a cache performs on a miss or ahead of expiry
+ */
+public class LoadStatistics {
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    public void recordLoad(long nanos) {
+        loads.increment();
+        loadNanos.add(nanos);
+        maxLoadNanos.accumulate(nanos);
+    }
+
+    public void recordLoadFailure() {
+        loadFailures.increment();
+    }
+
+    public void recordCoalescedLoad() {
+        coalescedLoads.increment();
+    }
+
+    public void recordRefresh() {
+        refreshes.increment();
+    }
+
+    public void recordRefreshFailure() {
+        refreshFailures.increment();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    public long getCoalescedLoads() {
+        return coalescedLoads.sum();
+    }
+
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    public CacheLoadStats snapshot() {
+        long loadCount = loads.sum();
+        return CacheLoadStats.builder()
+                .loads(loadCount)
+                .loadFailures(loadFailures.sum())
+                .averageLoadMillis(loadCount == 0 ? 0.0 : loadNanos.sum() / 1e6 / loadCount)
+                .maxLoadMillis(maxLoadNanos.get() / 1e6)
+                .coalescedLoads(coalescedLoads.sum())
+                .refreshes(refreshes.sum())
+                .refreshFailures(refreshFailures.sum())
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.orders.cache;
+
+import com.example.orders.dto.OrderJson;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Stores {@link OrderJson} cache values as a fixed header followed by the order's HTTP JSON, so
+ * that a Redis hit yields the response body with a single copy and no decoding.
+ * <p>
+ * Layout (version 1): a magic byte, a version byte, then the order ID and the entity version as
+ * big-endian longs ({@link Long#MIN_VALUE} when absent), then the JSON up to the end.
+ * <p>
+ * Any other value goes to the delegate serializer, and so do entries whose first byte is not the
+ * magic byte, which keeps orders cached in another format by earlier releases readable until they expire.
+ */
+public class OrderJsonRedisSerializer implements RedisSerializer<Object> {
+
+    // Neither the first byte of a JSON document nor OrderResponseRedisSerializer.MAGIC
+    static final byte MAGIC = (byte) 0xB8;
+    static final byte VERSION = 1;
+
+    private static final int HEADER_LENGTH = 2 + 2 * Long.BYTES;
+    private static final long ABSENT = Long.MIN_VALUE;
+
+    private final RedisSerializer<Object> delegate;
+
+    public OrderJsonRedisSerializer(RedisSerializer<Object> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!(value instanceof OrderJson order)) {
+            return delegate.serialize(value);
+        }
+        byte[] json = order.getJson();
+        return ByteBuffer.allocate(HEADER_LENGTH + json.length)
+                .put(MAGIC)
+                .put(VERSION)
+                .putLong(order.getId() == null ? ABSENT : order.getId())
+                .putLong(order.getVersion() == null ? ABSENT : order.getVersion())
+                .put(json)
+                .array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return delegate.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("Truncated order cache entry");
+        }
+        if (bytes[1] != VERSION) {
+            throw new SerializationException("Unsupported order JSON cache format version: " + bytes[1]);
+        }
+        ByteBuffer header = ByteBuffer.wrap(bytes, 2, 2 * Long.BYTES);
+        long id = header.getLong();
+        long version = header.getLong();
+        return new OrderJson(id == ABSENT ? null : id, version == ABSENT ? null : version,
+                Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length));
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.orders.cache;
+
+import com.example.orders.dto.OrderResponse;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Compact, schema-versioned binary encoding of {@link OrderResponse} cache values.
+ * <p>
+ * Layout (version 1): a magic byte, a version byte and a presence bitmap, followed by the
+ * non-null fields in declaration order. Integers are zigzag varints, the amount is its unscaled
+ * value plus scale, and timestamps are epoch seconds plus nanoseconds of the zone-less value.
+ * Anything else, and amounts too large for a long, is written by the fallback serializer.
+ * <p>
+ * Fields added later, such as the entity version, take the next presence bit and are written
+ * last, so readers that predate them still decode the fields they know and skip the rest.
+ * <p>
+ * Values whose first byte is not the magic byte are handed to the fallback serializer as well,
+ * so entries written as JSON before the switch keep being readable until they expire.
+ */
+public class OrderResponseRedisSerializer implements RedisSerializer<Object> {
+
+    // Never the first byte of a JSON document, which keeps the two formats distinguishable
+    static final byte MAGIC = (byte) 0xB7;
+    static final byte VERSION = 1;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_CUSTOMER_NAME = 1 << 1;
+    private static final int HAS_AMOUNT = 1 << 2;
+    private static final int HAS_CREATED_AT = 1 << 3;
+    private static final int HAS_UPDATED_AT = 1 << 4;
+    private static final int HAS_VERSION = 1 << 5;
+
+    private final RedisSerializer<Object> fallback;
+
+    public OrderResponseRedisSerializer(RedisSerializer<Object> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof OrderResponse order && fitsBinary(order)) {
+            return encode(order);
+        }
+        return fallback.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        return decode(bytes);
+    }
+
+    static byte[] encode(OrderResponse order) {
+        byte[] name = order.getCustomerName() == null
+                ? null
+                : order.getCustomerName().getBytes(StandardCharsets.UTF_8);
+        Writer out = new Writer(48 + (name == null ? 0 : name.length));
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(presence(order));
+        if (order.getId() != null) {
+            out.writeVarLong(order.getId());
+        }
+        if (name != null) {
+            out.writeVarLong(name.length);
+            out.writeBytes(name);
+        }
+        if (order.getAmount() != null) {
+            out.writeVarLong(order.getAmount().unscaledValue().longValue());
+            out.writeVarLong(order.getAmount().scale());
+        }
+        if (order.getCreatedAt() != null) {
+            out.writeTimestamp(order.getCreatedAt());
+        }
+        if (order.getUpdatedAt() != null) {
+            out.writeTimestamp(order.getUpdatedAt());
+        }
+        if (order.getVersion() != null) {
+            out.writeVarLong(order.getVersion());
+        }
+        return out.toByteArray();
+    }
+
+    static OrderResponse decode(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        in.readByte();
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported order cache format version: " + version);
+        }
+        int presence = in.readByte();
+        OrderResponse order = new OrderResponse();
+        if ((presence & HAS_ID) != 0) {
+            order.setId(in.readVarLong());
+        }
+        if ((presence & HAS_CUSTOMER_NAME) != 0) {
+            order.setCustomerName(in.readString((int) in.readVarLong()));
+        }
+        if ((presence & HAS_AMOUNT) != 0) {
+            long unscaled = in.readVarLong();
+            order.setAmount(BigDecimal.valueOf(unscaled, (int) in.readVarLong()));
+        }
+        if ((presence & HAS_CREATED_AT) != 0) {
+            order.setCreatedAt(in.readTimestamp());
+        }
+        if ((presence & HAS_UPDATED_AT) != 0) {
+            order.setUpdatedAt(in.readTimestamp());
+        }
+        if ((presence & HAS_VERSION) != 0) {
+            order.setVersion(in.readVarLong());
+        }
+        return order;
+    }
+
+    private static boolean fitsBinary(OrderResponse order) {
+        BigDecimal amount = order.getAmount();
+        if (amount == null) {
+            return true;
+        }
+        BigInteger unscaled = amount.unscaledValue();
+        return unscaled.bitLength() < Long.SIZE;
+    }
+
+    private static int presence(OrderResponse order) {
+        int presence = 0;
+        if (order.getId() != null) {
+            presence |= HAS_ID;
+        }
+        if (order.getCustomerName() != null) {
+            presence |= HAS_CUSTOMER_NAME;
+        }
+        if (order.getAmount() != null) {
+            presence |= HAS_AMOUNT;
+        }
+        if (order.getCreatedAt() != null) {
+            presence |= HAS_CREATED_AT;
+        }
+        if (order.getUpdatedAt() != null) {
+            presence |= HAS_UPDATED_AT;
+        }
+        if (order.getVersion() != null) {
+            presence |= HAS_VERSION;
+        }
+        return presence;
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+        }
+
+        private void writeTimestamp(LocalDateTime timestamp) {
+            writeVarLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(timestamp.getNano());
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private int readByte() {
+            require(1);
+            return buffer[position++] & 0xFF;
+        }
+
+        private String readString(int length) {
+            require(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new SerializationException("Malformed varint in order cache entry");
+        }
+
+        private LocalDateTime readTimestamp() {
+            long epochSecond = readVarLong();
+            return LocalDateTime.ofEpochSecond(epochSecond, (int) readVarLong(), ZoneOffset.UTC);
+        }
+
+        private void require(int length) {
+            if (length < 0 || position + length > buffer.length) {
+                throw new SerializationException("Truncated order cache entry");
+            }
+        }
+    }
+}
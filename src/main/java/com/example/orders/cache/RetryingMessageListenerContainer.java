@@ -0,0 +1,71 @@
+package com.example.orders.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listener container that does not fail application startup when Redis is unreachable.
+ * The initial subscription is retried in the background until it succeeds; invalidations
+ * missed in the meantime are bounded by the local tier TTL.
+ */
+@Slf4j
+public class RetryingMessageListenerContainer extends RedisMessageListenerContainer {
+
+    private final Duration retryInterval;
+    private final boolean subscribeInBackground;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation-subscriber");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile ScheduledFuture<?> pendingRetry;
+
+    /**
+     * @param subscribeInBackground make the first attempt on the retry thread too, so that startup
+     *                              never waits on the connection to Redis
+     */
+    public RetryingMessageListenerContainer(Duration retryInterval, boolean subscribeInBackground) {
+        this.retryInterval = retryInterval;
+        this.subscribeInBackground = subscribeInBackground;
+    }
+
+    @Override
+    public void start() {
+        if (subscribeInBackground) {
+            pendingRetry = scheduler.schedule(this::subscribe, 0, TimeUnit.MILLISECONDS);
+            return;
+        }
+        subscribe();
+    }
+
+    private void subscribe() {
+        try {
+            super.start();
+        } catch (RuntimeException ex) {
+            log.warn("Unable to subscribe for cache invalidations, retrying in {}: {}", retryInterval, ex.getMessage());
+            super.stop();
+            pendingRetry = scheduler.schedule(this::subscribe, retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        ScheduledFuture<?> retry = pendingRetry;
+        if (retry != null) {
+            retry.cancel(false);
+        }
+        super.stop();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        scheduler.shutdownNow();
+        super.destroy();
+    }
+}
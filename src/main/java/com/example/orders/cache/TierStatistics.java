@@ -0,0 +1,90 @@
+package com.example.orders.cache;
+
+import com.example.orders.dto.CacheTierStats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free hit/miss/eviction counters for a single cache tier
+ */
+public class TierStatistics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordHits(long count) {
+        hits.add(count);
+    }
+
+    public void recordMisses(long count) {
+        misses.add(count);
+    }
+
+    public void recordPut() {
+        puts.increment();
+    }
+
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    public void recordInvalidation() {
+        invalidations.increment();
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public CacheTierStats snapshot(String tier) {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return CacheTierStats.builder()
+                .tier(tier)
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRatio(requests == 0 ? 0.0 : (double) hitCount / requests)
+                .puts(puts.sum())
+                .evictions(evictions.sum())
+                .invalidations(invalidations.sum())
+                .errors(errors.sum())
+                .build();
+    }
+}
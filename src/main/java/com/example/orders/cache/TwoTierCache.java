@@ -0,0 +1,616 @@
+package com.example.orders.cache;
+
+import com.example.orders.dto.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cache that layers a bounded in-process tier (L1) in front of a shared Redis tier (L2).
+ * Reads are answered from L1 when possible and fall through to L2 on a miss, populating L1
+ * on the way back. Writes and evictions go to both tiers and are broadcast so that every
+ * other instance drops its L1 copy of the key.
+ * <p>
+ * Loads through {@link #get(Object, Callable)} are coalesced: concurrent misses on the same key
+ * wait for a single loader instead of each querying the database. Keys this instance loaded are
+ * also refreshed ahead of their Redis expiry with the XFetch rule, where the chance of an early
+ * refresh rises as expiry approaches and with how long the last load took, so that frequently
+ * read keys are reloaded by one caller before they expire rather than by all of them after.
+ * <p>
+ * Every Redis call goes through a circuit breaker and never fails the caller: an error, a timeout
+ * or an open breaker makes a read miss L2 and fall through to the loader, and drops a write. A key
+ * whose write or eviction did not reach Redis may have a stale value there, so it is not read
+ * from Redis again until it has been evicted there once Redis is reachable.
+ * <p>
+ * A load may read a row that a put or evict replaces before the load stores it. Every write bumps
+ * the key's write generation first, and a load stores its value only if the generation it saw
+ * before reading is unchanged, undoing the store if a write raced with it.
+ */
+@Slf4j
+public class TwoTierCache implements org.springframework.cache.Cache {
+
+    public static final String LOCAL_TIER = "L1";
+    public static final String REDIS_TIER = "L2";
+
+    private static final String CLEAR_ALL = "*";
+
+    /**
+     * Write generations are kept per stripe of keys rather than per key, so they take fixed memory;
+     * keys sharing a stripe only cost each other a skipped store
+     */
+    private static final int WRITE_GENERATION_STRIPES = 1024;
+
+    private final String name;
+    private final org.springframework.cache.Cache redisCache;
+    private final Cache<String, Object> localCache;
+    private final CacheInvalidationPublisher invalidationPublisher;
+
+    private final TierStatistics localStats = new TierStatistics();
+    private final TierStatistics redisStats = new TierStatistics();
+    private final LoadStatistics loadStats = new LoadStatistics();
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    private final Cache<String, LoadMetadata> loadMetadata;
+    private final Duration redisTtl;
+    private final double refreshBeta;
+    private final Executor refreshExecutor;
+
+    private final CircuitBreaker circuitBreaker;
+    private final int maxPendingEvictions;
+    private final Set<String> pendingRedisEvictions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean repairScheduled = new AtomicBoolean();
+    private volatile boolean pendingRedisClear;
+
+    private final AtomicLongArray writeGenerations = new AtomicLongArray(WRITE_GENERATION_STRIPES);
+    private final AtomicLong clearGeneration = new AtomicLong();
+
+    /**
+     * When a value loaded or written by this instance expires from Redis, and how long its last load took
+     */
+    private record LoadMetadata(long expiresAtNanos, long loadNanos) {
+    }
+
+    public TwoTierCache(String name,
+                        org.springframework.cache.Cache redisCache,
+                        long maxLocalEntries,
+                        Duration localTtl,
+                        CacheInvalidationPublisher invalidationPublisher,
+                        Duration redisTtl,
+                        double refreshBeta,
+                        Executor refreshExecutor,
+                        CircuitBreaker circuitBreaker,
+                        int maxPendingEvictions) {
+        this.name = name;
+        this.redisCache = redisCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.redisTtl = redisTtl;
+        this.refreshBeta = refreshBeta;
+        this.refreshExecutor = refreshExecutor;
+        this.circuitBreaker = circuitBreaker;
+        this.maxPendingEvictions = maxPendingEvictions;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maxLocalEntries)
+                .expireAfterWrite(localTtl)
+                .evictionListener((key, value, cause) -> localStats.recordEviction())
+                .build();
+        this.loadMetadata = Caffeine.newBuilder()
+                .maximumSize(maxLocalEntries)
+                .expireAfterWrite(redisTtl)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = toLocalKey(key);
+        Object localValue = localCache.getIfPresent(localKey);
+        if (localValue != null) {
+            localStats.recordHit();
+            return new SimpleValueWrapper(localValue);
+        }
+        localStats.recordMiss();
+
+        ValueWrapper redisValue = redisGet(key, localKey);
+        if (redisValue == null || redisValue.get() == null) {
+            redisStats.recordMiss();
+            return null;
+        }
+        redisStats.recordHit();
+        localCache.put(localKey, redisValue.get());
+        return redisValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Return the cached value or load it, letting at most one caller per key run the loader
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = toLocalKey(key);
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            refreshAheadIfDue(key, localKey, valueLoader);
+            return (T) wrapper.get();
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(localKey, load);
+        if (inFlight != null) {
+            loadStats.recordCoalescedLoad();
+            return (T) await(key, inFlight, valueLoader);
+        }
+        try {
+            // A load that finished between our miss and claiming the key has filled L1
+            Object value = localCache.getIfPresent(localKey);
+            if (value == null) {
+                value = loadAndStore(key, localKey, valueLoader, null);
+            }
+            load.complete(value);
+            return (T) value;
+        } catch (Throwable ex) {
+            load.completeExceptionally(ex);
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } finally {
+            inFlightLoads.remove(localKey, load);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        String localKey = toLocalKey(key);
+        bumpWriteGeneration(localKey);
+        if (redisPut(key, localKey, value)) {
+            loadMetadata.asMap().computeIfPresent(localKey,
+                    (k, metadata) -> new LoadMetadata(System.nanoTime() + redisTtl.toNanos(), metadata.loadNanos()));
+        } else {
+            loadMetadata.invalidate(localKey);
+        }
+        localCache.put(localKey, value);
+        localStats.recordPut();
+        invalidationPublisher.publish(name, localKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = toLocalKey(key);
+        bumpWriteGeneration(localKey);
+        if (callRedis("evict", localKey, () -> redisCache.evict(key))) {
+            redisStats.recordEviction();
+        } else {
+            markStale(localKey);
+        }
+        localCache.invalidate(localKey);
+        localStats.recordInvalidation();
+        loadMetadata.invalidate(localKey);
+        invalidationPublisher.publish(name, localKey);
+    }
+
+    @Override
+    public void clear() {
+        clearGeneration.incrementAndGet();
+        if (callRedis("clear", CLEAR_ALL, redisCache::clear)) {
+            redisStats.recordEviction();
+        } else {
+            pendingRedisClear = true;
+        }
+        localCache.invalidateAll();
+        localStats.recordInvalidation();
+        loadMetadata.invalidateAll();
+        invalidationPublisher.publishClear(name);
+    }
+
+    /**
+     * Local-tier lookup of many keys at once, for bulk reads that fetch the rest from Redis in one
+     * round-trip; returns the values found, by key
+     */
+    public Map<Object, Object> getAllPresentLocal(Collection<?> keys) {
+        Map<Object, Object> found = new HashMap<>();
+        for (Object key : keys) {
+            Object value = localCache.getIfPresent(toLocalKey(key));
+            if (value != null) {
+                found.put(key, value);
+            }
+        }
+        localStats.recordHits(found.size());
+        localStats.recordMisses(keys.size() - found.size());
+        return found;
+    }
+
+    /**
+     * Keep values read from Redis by a bulk read in the local tier, and count the read's outcome
+     */
+    public void acceptRedisValues(Map<?, ?> found, int requested) {
+        found.forEach((key, value) -> localCache.put(toLocalKey(key), value));
+        redisStats.recordHits(found.size());
+        redisStats.recordMisses(requested - found.size());
+    }
+
+    /**
+     * Write generations of many keys, read before a bulk load queries the database for them
+     */
+    public <K> Map<K, Long> getWriteGenerations(Collection<K> keys) {
+        Map<K, Long> generations = new HashMap<>();
+        keys.forEach(key -> generations.put(key, getWriteGeneration(key)));
+        return generations;
+    }
+
+    /**
+     * Keep values loaded from the database by a bulk read in the local tier, except those whose key
+     * was written since the given generations were read. Returns the values kept; the caller writes
+     * them to Redis and then evicts the keys {@link #getKeysWrittenSince} still reports.
+     */
+    public <K, V> Map<K, V> putAllLocal(Map<K, V> values, Map<K, Long> generations) {
+        Map<K, V> kept = new HashMap<>();
+        values.forEach((key, value) -> {
+            if (isUnwrittenSince(key, generations)) {
+                localCache.put(toLocalKey(key), value);
+                localStats.recordPut();
+                kept.put(key, value);
+            }
+        });
+        return kept;
+    }
+
+    /**
+     * Keys written since the given generations were read. Values a bulk load stored for them may
+     * have landed after the write, in which case only evicting the keys removes them.
+     */
+    public <K> List<K> getKeysWrittenSince(Collection<K> keys, Map<K, Long> generations) {
+        return keys.stream()
+                .filter(key -> !isUnwrittenSince(key, generations))
+                .toList();
+    }
+
+    public void recordRedisError() {
+        redisStats.recordError();
+    }
+
+    /**
+     * False while the key's Redis entry may be stale because a write or eviction did not reach
+     * Redis; bulk reads must then load the key instead of reading it from Redis
+     */
+    public boolean isRedisEntryTrusted(Object key) {
+        return !pendingRedisClear && !pendingRedisEvictions.contains(toLocalKey(key));
+    }
+
+    /**
+     * Number of keys waiting to be evicted from Redis once it is reachable again
+     */
+    public int getPendingRedisEvictions() {
+        return pendingRedisEvictions.size();
+    }
+
+    /**
+     * Drop a key from the local tier only, in response to a write on another instance
+     */
+    public void invalidateLocal(String key) {
+        bumpWriteGeneration(key);
+        localCache.invalidate(key);
+        localStats.recordInvalidation();
+    }
+
+    /**
+     * Drop every key from the local tier only, in response to a clear on another instance
+     */
+    public void invalidateAllLocal() {
+        clearGeneration.incrementAndGet();
+        localCache.invalidateAll();
+        localStats.recordInvalidation();
+    }
+
+    /**
+     * Changes whenever the key is written, evicted or cleared, here or on another instance. Bulk
+     * loads read it before querying the database and store only values whose key kept it.
+     */
+    public long getWriteGeneration(Object key) {
+        return writeGeneration(toLocalKey(key));
+    }
+
+    public long getLocalSize() {
+        return localCache.estimatedSize();
+    }
+
+    public TierStatistics getLocalStatistics() {
+        return localStats;
+    }
+
+    public TierStatistics getRedisStatistics() {
+        return redisStats;
+    }
+
+    public LoadStatistics getLoadStatistics() {
+        return loadStats;
+    }
+
+    public CacheStatsResponse getStatistics() {
+        return CacheStatsResponse.builder()
+                .tiers(List.of(localStats.snapshot(LOCAL_TIER), redisStats.snapshot(REDIS_TIER)))
+                .loads(loadStats.snapshot())
+                .build();
+    }
+
+    /**
+     * Start a background reload if the XFetch rule fires: now - loadTime * beta * ln(rand) >= expiry
+     */
+    private void refreshAheadIfDue(Object key, String localKey, Callable<?> valueLoader) {
+        if (refreshBeta <= 0) {
+            return;
+        }
+        LoadMetadata metadata = loadMetadata.getIfPresent(localKey);
+        if (metadata == null) {
+            return;
+        }
+        double headStart = -metadata.loadNanos() * refreshBeta * Math.log(ThreadLocalRandom.current().nextDouble());
+        if (System.nanoTime() + headStart < metadata.expiresAtNanos()) {
+            return;
+        }
+
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        if (inFlightLoads.putIfAbsent(localKey, refresh) != null) {
+            return;
+        }
+        loadStats.recordRefresh();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.complete(loadAndStore(key, localKey, valueLoader, metadata));
+                } catch (Throwable ex) {
+                    loadStats.recordRefreshFailure();
+                    loadMetadata.invalidate(localKey);
+                    refresh.completeExceptionally(ex);
+                    log.debug("Refresh-ahead of {}::{} failed: {}", name, localKey, ex.getMessage());
+                } finally {
+                    inFlightLoads.remove(localKey, refresh);
+                }
+            });
+        } catch (RuntimeException ex) {
+            inFlightLoads.remove(localKey, refresh);
+            refresh.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Run the loader and write its value to both tiers, unless the key was written while it ran.
+     * A refresh passes the metadata it was triggered by and also skips the write if that metadata
+     * has expired or been replaced meanwhile.
+     */
+    private Object loadAndStore(Object key, String localKey, Callable<?> valueLoader,
+                                LoadMetadata refreshedFrom) throws Exception {
+        long generation = writeGeneration(localKey);
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            loadStats.recordLoadFailure();
+            throw ex;
+        }
+        long loadNanos = System.nanoTime() - start;
+        loadStats.recordLoad(loadNanos);
+        if (value == null) {
+            return null;
+        }
+        if (refreshedFrom != null && loadMetadata.getIfPresent(localKey) != refreshedFrom) {
+            return value;
+        }
+        if (writeGeneration(localKey) != generation) {
+            return value;
+        }
+        boolean stored = redisPut(key, localKey, value);
+        localCache.put(localKey, value);
+        localStats.recordPut();
+        if (writeGeneration(localKey) != generation) {
+            undoStore(key, localKey, value);
+            return value;
+        }
+        if (stored) {
+            loadMetadata.put(localKey, new LoadMetadata(System.nanoTime() + redisTtl.toNanos(), loadNanos));
+        }
+        return value;
+    }
+
+    /**
+     * Drop a loaded value stored while a write to its key went ahead. The write bumped the
+     * generation before touching either tier, so whichever of the two stores landed last, evicting
+     * now leaves no value older than the write; at worst a newer one is dropped and loaded again.
+     */
+    private void undoStore(Object key, String localKey, Object value) {
+        localCache.asMap().remove(localKey, value);
+        if (!callRedis("evict", localKey, () -> redisCache.evict(key))) {
+            markStale(localKey);
+        }
+        loadMetadata.invalidate(localKey);
+    }
+
+    private boolean isUnwrittenSince(Object key, Map<?, Long> generations) {
+        Long generation = generations.get(key);
+        return generation != null && generation == getWriteGeneration(key);
+    }
+
+    private long writeGeneration(String localKey) {
+        // Both counters only grow, so their sum changes whenever either does
+        return clearGeneration.get() + writeGenerations.get(writeGenerationStripe(localKey));
+    }
+
+    private void bumpWriteGeneration(String localKey) {
+        writeGenerations.incrementAndGet(writeGenerationStripe(localKey));
+    }
+
+    private static int writeGenerationStripe(String localKey) {
+        return Math.floorMod(localKey.hashCode(), WRITE_GENERATION_STRIPES);
+    }
+
+    /**
+     * Read a key from Redis; null on a miss, and also when Redis is skipped, fails or may hold a stale value
+     */
+    private ValueWrapper redisGet(Object key, String localKey) {
+        if (!isRedisEntryTrusted(localKey)) {
+            return null;
+        }
+        try {
+            ValueWrapper value = circuitBreaker.executeSupplier(() -> redisCache.get(key));
+            repairIfPending();
+            return value;
+        } catch (CallNotPermittedException ex) {
+            return null;
+        } catch (RuntimeException ex) {
+            redisStats.recordError();
+            log.debug("Redis get of {}::{} failed: {}", name, localKey, ex.getMessage());
+            return null;
+        }
+    }
+
+    private boolean redisPut(Object key, String localKey, Object value) {
+        if (callRedis("put", localKey, () -> redisCache.put(key, value))) {
+            redisStats.recordPut();
+            return true;
+        }
+        markStale(localKey);
+        return false;
+    }
+
+    /**
+     * Run a Redis write through the circuit breaker, returning false if it was skipped or failed
+     */
+    private boolean callRedis(String operation, String localKey, Runnable call) {
+        try {
+            circuitBreaker.executeRunnable(call);
+            repairIfPending();
+            return true;
+        } catch (CallNotPermittedException ex) {
+            return false;
+        } catch (RuntimeException ex) {
+            redisStats.recordError();
+            log.debug("Redis {} of {}::{} failed: {}", operation, name, localKey, ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Remember that Redis may still hold an outdated value for the key, or for any key once too
+     * many are pending
+     */
+    private void markStale(String localKey) {
+        if (pendingRedisEvictions.size() < maxPendingEvictions) {
+            pendingRedisEvictions.add(localKey);
+        } else {
+            pendingRedisClear = true;
+        }
+    }
+
+    /**
+     * Once a Redis call succeeds with the breaker closed, evict the keys marked stale in the background
+     */
+    private void repairIfPending() {
+        if (!pendingRedisClear && pendingRedisEvictions.isEmpty()) {
+            return;
+        }
+        if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED || !repairScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                boolean repaired;
+                try {
+                    repaired = repairRedis();
+                } finally {
+                    repairScheduled.set(false);
+                }
+                if (repaired) {
+                    // Pick up keys marked while this repair was running
+                    repairIfPending();
+                }
+            });
+        } catch (RuntimeException ex) {
+            repairScheduled.set(false);
+        }
+    }
+
+    /**
+     * Evict every key whose Redis entry may be stale, stopping at the first failure; the next
+     * successful Redis call schedules another attempt
+     */
+    private boolean repairRedis() {
+        if (pendingRedisClear) {
+            // Keys marked from here on are covered by the clear, or by the flag if it fails
+            pendingRedisEvictions.clear();
+            if (!callRedis("clear", CLEAR_ALL, redisCache::clear)) {
+                return false;
+            }
+            pendingRedisClear = false;
+            log.info("Cleared {} in Redis after writes to it were dropped", name);
+            return true;
+        }
+        int evicted = 0;
+        for (String localKey : pendingRedisEvictions) {
+            if (!callRedis("evict", localKey, () -> redisCache.evict(localKey))) {
+                return false;
+            }
+            pendingRedisEvictions.remove(localKey);
+            evicted++;
+        }
+        if (evicted > 0) {
+            log.info("Evicted {} possibly stale keys of {} from Redis", evicted, name);
+        }
+        return true;
+    }
+
+    private Object await(Object key, CompletableFuture<Object> inFlight, Callable<?> valueLoader) {
+        try {
+            return inFlight.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } catch (ExecutionException ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        }
+    }
+
+    private static String toLocalKey(Object key) {
+        return String.valueOf(key);
+    }
+}
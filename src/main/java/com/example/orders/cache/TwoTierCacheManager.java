@@ -0,0 +1,107 @@
+package com.example.orders.cache;
+
+import com.example.orders.dto.CacheStatsResponse;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Cache manager that wraps every cache of the Redis cache manager in a {@link TwoTierCache}
+ */
+public class TwoTierCacheManager extends AbstractCacheManager {
+
+    private final CacheManager redisCacheManager;
+    private final long maxLocalEntries;
+    private final Duration localTtl;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final Duration redisTtl;
+    private final double refreshBeta;
+    private final Executor refreshExecutor;
+    private final CircuitBreaker circuitBreaker;
+    private final int maxPendingEvictions;
+
+    public TwoTierCacheManager(CacheManager redisCacheManager,
+                               long maxLocalEntries,
+                               Duration localTtl,
+                               CacheInvalidationPublisher invalidationPublisher,
+                               Duration redisTtl,
+                               double refreshBeta,
+                               Executor refreshExecutor,
+                               CircuitBreaker circuitBreaker,
+                               int maxPendingEvictions) {
+        this.redisCacheManager = redisCacheManager;
+        this.maxLocalEntries = maxLocalEntries;
+        this.localTtl = localTtl;
+        this.invalidationPublisher = invalidationPublisher;
+        this.redisTtl = redisTtl;
+        this.refreshBeta = refreshBeta;
+        this.refreshExecutor = refreshExecutor;
+        this.circuitBreaker = circuitBreaker;
+        this.maxPendingEvictions = maxPendingEvictions;
+    }
+
+    /**
+     * Wrap the caches the Redis cache manager was initialised with, so that they exist (and get
+     * metrics bound) at startup; other caches are still created on first use
+     */
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return redisCacheManager.getCacheNames().stream()
+                .map(this::getMissingCache)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null) {
+            return null;
+        }
+        return new TwoTierCache(name, redisCache, maxLocalEntries, localTtl, invalidationPublisher,
+                redisTtl, refreshBeta, refreshExecutor, circuitBreaker, maxPendingEvictions);
+    }
+
+    public void invalidateLocal(String cacheName, String key) {
+        Cache cache = lookupCache(cacheName);
+        if (cache instanceof TwoTierCache twoTierCache) {
+            twoTierCache.invalidateLocal(key);
+        }
+    }
+
+    public void invalidateAllLocal(String cacheName) {
+        Cache cache = lookupCache(cacheName);
+        if (cache instanceof TwoTierCache twoTierCache) {
+            twoTierCache.invalidateAllLocal();
+        }
+    }
+
+    public Map<String, TwoTierCache> getCaches() {
+        Map<String, TwoTierCache> caches = new LinkedHashMap<>();
+        for (String cacheName : getCacheNames()) {
+            if (lookupCache(cacheName) instanceof TwoTierCache twoTierCache) {
+                caches.put(cacheName, twoTierCache);
+            }
+        }
+        return caches;
+    }
+
+    public Map<String, CacheStatsResponse> getStatistics() {
+        Map<String, CacheStatsResponse> statistics = new LinkedHashMap<>();
+        for (String cacheName : getCacheNames()) {
+            Cache cache = lookupCache(cacheName);
+            if (cache instanceof TwoTierCache twoTierCache) {
+                statistics.put(cacheName, twoTierCache.getStatistics());
+            }
+        }
+        return statistics;
+    }
+}
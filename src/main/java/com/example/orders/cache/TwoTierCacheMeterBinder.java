@@ -0,0 +1,109 @@
+package com.example.orders.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the counters of a {@link TwoTierCache} as Micrometer meters. The standard cache
+ * meters describe the cache as a whole: a get hits if either tier answers it. The per-tier,
+ * error, load and coalescing meters below break that down.
+ */
+public class TwoTierCacheMeterBinder extends CacheMeterBinder<TwoTierCache> {
+
+    public TwoTierCacheMeterBinder(TwoTierCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        TwoTierCache cache = getCache();
+        return cache == null ? null : cache.getLocalSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        TwoTierCache cache = getCache();
+        return cache == null ? 0 : cache.getLocalStatistics().getHits() + cache.getRedisStatistics().getHits();
+    }
+
+    @Override
+    protected Long missCount() {
+        TwoTierCache cache = getCache();
+        return cache == null ? null : cache.getRedisStatistics().getMisses();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        TwoTierCache cache = getCache();
+        return cache == null ? null : cache.getLocalStatistics().getEvictions();
+    }
+
+    @Override
+    protected long putCount() {
+        TwoTierCache cache = getCache();
+        return cache == null ? 0 : cache.getRedisStatistics().getPuts();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        TwoTierCache cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        bindTier(registry, TwoTierCache.LOCAL_TIER, cache.getLocalStatistics());
+        bindTier(registry, TwoTierCache.REDIS_TIER, cache.getRedisStatistics());
+
+        Gauge.builder("cache.local.size", cache, TwoTierCache::getLocalSize)
+                .tags(getTagsWithCacheName())
+                .description("Entries held in the in-process tier")
+                .register(registry);
+
+        LoadStatistics loads = cache.getLoadStatistics();
+        FunctionTimer.builder("cache.loads", loads, LoadStatistics::getLoads, LoadStatistics::getLoadNanos,
+                        TimeUnit.NANOSECONDS)
+                .tags(getTagsWithCacheName())
+                .description("Loads performed on a miss or ahead of expiry, and the time they took")
+                .register(registry);
+        counter(registry, "cache.loads.failed", loads, LoadStatistics::getLoadFailures,
+                "Loads whose loader threw");
+        counter(registry, "cache.loads.coalesced", loads, LoadStatistics::getCoalescedLoads,
+                "Misses that waited for a load already in flight instead of loading themselves");
+        counter(registry, "cache.refreshes", loads, LoadStatistics::getRefreshes,
+                "Background reloads started ahead of expiry");
+    }
+
+    private void bindTier(MeterRegistry registry, String tier, TierStatistics stats) {
+        tierCounter(registry, "cache.tier.gets", tier, "hit", stats, TierStatistics::getHits);
+        tierCounter(registry, "cache.tier.gets", tier, "miss", stats, TierStatistics::getMisses);
+        tierCounter(registry, "cache.tier.puts", tier, null, stats, TierStatistics::getPuts);
+        tierCounter(registry, "cache.tier.evictions", tier, null, stats, TierStatistics::getEvictions);
+        tierCounter(registry, "cache.tier.invalidations", tier, null, stats, TierStatistics::getInvalidations);
+        tierCounter(registry, "cache.tier.errors", tier, null, stats, TierStatistics::getErrors);
+    }
+
+    private void tierCounter(MeterRegistry registry, String name, String tier, String result,
+                             TierStatistics stats, ToLongFunction<TierStatistics> count) {
+        FunctionCounter.Builder<TierStatistics> builder = FunctionCounter.builder(name, stats, value -> count.applyAsLong(value))
+                .tags(getTagsWithCacheName())
+                .tag("tier", tier);
+        if (result != null) {
+            builder.tag("result", result);
+        }
+        builder.register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, LoadStatistics loads,
+                         ToLongFunction<LoadStatistics> count, String description) {
+        FunctionCounter.builder(name, loads, value -> count.applyAsLong(value))
+                .tags(getTagsWithCacheName())
+                .description(description)
+                .register(registry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "access-log")
+public class AccessLogProperties {
+
+    /**
+     * Write one structured line per sampled request to the access logger
+     */
+    private boolean enabled = true;
+
+    /**
+     * Fraction of successful requests that are logged; server errors and slow requests are always logged
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * Requests taking at least this long are always logged
+     */
+    private Duration slowThreshold = Duration.ofMillis(500);
+}
@@ -0,0 +1,48 @@
+package com.example.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "admission-control")
+public class AdmissionControlProperties {
+
+    /**
+     * Limit concurrent order API requests and answer the excess with 503 right away
+     */
+    private boolean enabled = true;
+
+    /**
+     * Concurrency limit to start from, before any latency has been observed
+     */
+    private int initialLimit = 10;
+
+    private int minLimit = 4;
+
+    /**
+     * Upper bound of the adaptive limit, no higher than the number of request threads
+     */
+    private int maxLimit = 200;
+
+    /**
+     * How many times the baseline latency recent requests may take before the limit is lowered
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * Share of the limit writes and paged listings may fill; lookups by ID may fill all of it
+     */
+    private double normalShare = 0.8;
+
+    /**
+     * Share of the limit full listings, exports, searches, analytics and batch imports may fill
+     */
+    private double lowShare = 0.3;
+
+    /**
+     * Sent as Retry-After with every shed request
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
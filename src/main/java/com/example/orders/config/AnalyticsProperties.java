@@ -0,0 +1,21 @@
+package com.example.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "analytics")
+public class AnalyticsProperties {
+
+    /**
+     * How long an aggregation result is reused, so that dashboards polling the same query share one computation
+     */
+    private Duration resultTtl = Duration.ofSeconds(10);
+
+    /**
+     * Distinct queries whose results are kept at a time
+     */
+    private long maxCachedResults = 1000;
+}
@@ -0,0 +1,162 @@
+package com.example.orders.config;
+
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.event.OrderCacheClearedEvent;
+import com.example.orders.service.CacheService;
+import com.example.orders.service.OrderService;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Preloads the hot set of orders into Redis so that a fresh instance, or a cache that was just
+ * cleared, does not send its first wave of traffic to the database. Runs after {@link DataLoader},
+ * in the background and rate limited, and reports progress through {@link CacheWarmupHealthIndicator}
+ * so that readiness is held until the startup warm-up finishes.
+ */
+@Component
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class CacheWarmer implements CommandLineRunner {
+    
+    public enum Phase {
+        PENDING,
+        WARMING,
+        COMPLETED,
+        FAILED
+    }
+    
+    private final OrderService orderService;
+    private final CacheService cacheService;
+    private final OrderCacheProperties cacheProperties;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean startupWarmupDone;
+    private volatile Phase phase = Phase.PENDING;
+    private volatile long startedAtNanos = System.nanoTime();
+    private volatile int target;
+    private volatile int loaded;
+    
+    @Override
+    public void run(String... args) {
+        if (!cacheProperties.getWarmup().isEnabled()) {
+            startupWarmupDone = true;
+            return;
+        }
+        start();
+    }
+    
+    @EventListener
+    public void onCacheCleared(OrderCacheClearedEvent event) {
+        if (cacheProperties.getWarmup().isEnabled()) {
+            start();
+        }
+    }
+    
+    /**
+     * True while the startup warm-up is running and has not exceeded its time budget
+     */
+    public boolean isHoldingTraffic() {
+        if (startupWarmupDone || !cacheProperties.getWarmup().isEnabled()) {
+            return false;
+        }
+        return System.nanoTime() - startedAtNanos < cacheProperties.getWarmup().getMaxDuration().toNanos();
+    }
+    
+    public Map<String, Object> getProgress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("phase", phase);
+        progress.put("loaded", loaded);
+        progress.put("target", target);
+        progress.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAtNanos));
+        return progress;
+    }
+    
+    private void start() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Cache warm-up already in progress");
+            return;
+        }
+        startedAtNanos = System.nanoTime();
+        phase = Phase.WARMING;
+        Thread.ofVirtual().name("cache-warmup").start(() -> {
+            try {
+                phase = warmUp() ? Phase.COMPLETED : Phase.FAILED;
+            } catch (RuntimeException ex) {
+                log.warn("Cache warm-up failed: {}", ex.getMessage());
+                phase = Phase.FAILED;
+            } finally {
+                startupWarmupDone = true;
+                running.set(false);
+            }
+        });
+    }
+    
+    private boolean warmUp() {
+        OrderCacheProperties.Warmup warmup = cacheProperties.getWarmup();
+        loaded = 0;
+        
+        // Most frequently read orders first, then the newest ones
+        Set<Long> ids = new LinkedHashSet<>();
+        try {
+            ids.addAll(cacheService.getHotOrderIds(warmup.getHotOrders()));
+        } catch (CallNotPermittedException | DataAccessException ex) {
+            log.warn("Could not read the hot set, warming recent orders only: {}", ex.getMessage());
+        }
+        ids.addAll(orderService.getRecentOrderIds(warmup.getRecentOrders()));
+        List<Long> orderIds = new ArrayList<>(ids);
+        target = orderIds.size();
+        log.info("Cache warm-up started for {} orders", target);
+        
+        long startNanos = System.nanoTime();
+        int batchSize = Math.max(1, warmup.getBatchSize());
+        for (int from = 0; from < orderIds.size(); from += batchSize) {
+            List<Long> batchIds = orderIds.subList(from, Math.min(from + batchSize, orderIds.size()));
+            Map<Long, Long> generations = cacheService.getWriteGenerations(batchIds);
+            List<OrderResponse> batch = orderService.loadOrders(batchIds);
+            if (!cacheService.cacheOrdersIfAbsent(batch, generations)) {
+                log.warn("Cache warm-up stopped after {} of {} orders", loaded, target);
+                return false;
+            }
+            loaded += batchIds.size();
+            throttle(startNanos, loaded, warmup.getOrdersPerSecond());
+        }
+        log.info("Cache warm-up loaded {} orders in {} ms", loaded,
+                Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        return true;
+    }
+    
+    /**
+     * Sleep until the given number of orders is due at the configured rate
+     */
+    private static void throttle(long startNanos, int done, int ordersPerSecond) {
+        if (ordersPerSecond <= 0) {
+            return;
+        }
+        long dueNanos = startNanos + done * TimeUnit.SECONDS.toNanos(1) / ordersPerSecond;
+        long aheadNanos = dueNanos - System.nanoTime();
+        if (aheadNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(aheadNanos);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.orders.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Out of service while the startup cache warm-up runs. Part of the readiness group, so load
+ * balancers hold traffic until the hot set is in Redis.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+    
+    private final CacheWarmer cacheWarmer;
+    
+    @Override
+    public Health health() {
+        Health.Builder builder = cacheWarmer.isHoldingTraffic() ? Health.outOfService() : Health.up();
+        return builder.withDetails(cacheWarmer.getProgress()).build();
+    }
+}
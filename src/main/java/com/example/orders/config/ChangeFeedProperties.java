@@ -0,0 +1,42 @@
+package com.example.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "change-feed")
+public class ChangeFeedProperties {
+
+    /**
+     * Longest a long-poll request may wait for changes before returning an empty page
+     */
+    private Duration maxWait = Duration.ofSeconds(30);
+
+    /**
+     * Pages only include changes at least this old, so a write still open on another instance is not
+     * skipped; must exceed the longest write transaction
+     */
+    private Duration commitLag = Duration.ofSeconds(5);
+
+    /**
+     * Interval of the comment lines sent on idle event streams, so proxies keep them open and dead clients are noticed
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * Event streams are closed after this long; clients reconnect with Last-Event-ID and resume where they left off
+     */
+    private Duration streamTimeout = Duration.ofMinutes(30);
+
+    /**
+     * How long delete tombstones are kept; consumers whose cursor is older than this must resync from the beginning
+     */
+    private Duration tombstoneRetention = Duration.ofDays(7);
+
+    /**
+     * How often expired tombstones are removed
+     */
+    private Duration pruneInterval = Duration.ofHours(1);
+}
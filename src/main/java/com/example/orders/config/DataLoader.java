@@ -5,24 +5,74 @@ import com.example.orders.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
 
+/**
+ * Loads data at startup, only when asked to: the demo orders into an empty table
+ * ({@code data-loader.sample-data}) and any number of synthetic orders ({@code data-loader.synthetic-orders}).
+ * Synthetic orders are written with batched JDBC inserts instead of through JPA, so millions of rows load in seconds.
+ * Runs before the cache warm-up and the index rebuild, which therefore see the loaded orders.
+ */
 @Component
+@org.springframework.core.annotation.Order(1)
 @RequiredArgsConstructor
 @Slf4j
 public class DataLoader implements CommandLineRunner {
     
+    private static final String INSERT_SQL =
+            "INSERT INTO orders (id, customer_name, amount, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, 0)";
+    
+    private static final String NEXT_ID_BLOCKS_SQL = "SELECT NEXT VALUE FOR orders_seq FROM SYSTEM_RANGE(1, ?)";
+    
+    /**
+     * Must match the allocation size of {@link Order#getId()}: every sequence value reserves the IDs up to and including it
+     */
+    private static final int ID_BLOCK_SIZE = 50;
+    
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+            "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+            "Daniel", "Nancy", "Matthew", "Lisa", "Anthony", "Betty", "Mark", "Margaret", "Paul", "Sandra"
+    };
+    
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+            "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson"
+    };
+    
     private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataLoaderProperties properties;
     
     @Override
     public void run(String... args) throws Exception {
-        log.info("Loading initial data...");
+        if (properties.isSampleData()) {
+            loadSampleOrders();
+        }
+        if (properties.getSyntheticOrders() > 0) {
+            generateOrders(properties.getSyntheticOrders());
+        }
+    }
+    
+    private void loadSampleOrders() {
+        if (orderRepository.count() > 0) {
+            log.info("Orders table is not empty, skipping sample data");
+            return;
+        }
         
-        // Clear existing data
-        orderRepository.deleteAll();
+        log.info("Loading initial data...");
         
         // Create sample orders
         Order order1 = new Order();
@@ -49,4 +99,63 @@ public class DataLoader implements CommandLineRunner {
         
         log.info("Initial data loaded successfully. Created {} sample orders.", orderRepository.count());
     }
+    
+    /**
+     * Inserts {@code count} orders with random customers and amounts, one transaction per batch
+     */
+    public void generateOrders(long count) {
+        log.info("Generating {} synthetic orders...", count);
+        long start = System.nanoTime();
+        SplittableRandom random = properties.getSeed() != null ? new SplittableRandom(properties.getSeed()) : new SplittableRandom();
+        // Creation times rise with the IDs, as they would in production, so the time indexes are
+        // appended to instead of updated at random places
+        LocalDateTime first = Order.now().minus(properties.getCreatedWithin());
+        long stepMicros = Math.max(1, properties.getCreatedWithin().toNanos() / 1000 / count);
+        int batchSize = Math.max(1, properties.getBatchSize());
+        
+        long inserted = 0;
+        while (inserted < count) {
+            int rows = (int) Math.min(batchSize, count - inserted);
+            List<Object[]> batch = new ArrayList<>(rows);
+            long row = inserted;
+            for (long id : allocateIds(rows)) {
+                long offsetMicros = row++ * stepMicros + random.nextLong(stepMicros);
+                Timestamp createdAt = Timestamp.valueOf(first.plusNanos(offsetMicros * 1000));
+                batch.add(new Object[] {
+                        id,
+                        FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                        BigDecimal.valueOf(random.nextLong(100, 100_000), 2),
+                        createdAt,
+                        createdAt
+                });
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+            inserted += rows;
+        }
+        
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Generated {} synthetic orders in {} ms ({} orders/s)", inserted, millis, inserted * 1000 / millis);
+    }
+    
+    /**
+     * Takes whole ID blocks from the sequence the way Hibernate's pooled optimizer does, so the
+     * generated IDs never collide with those of orders created through JPA
+     */
+    private long[] allocateIds(int rows) {
+        List<Long> blockEnds = jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Long.class, rows / ID_BLOCK_SIZE + 2);
+        long[] ids = new long[rows];
+        int n = 0;
+        for (long end : blockEnds) {
+            // The first value of a fresh sequence only marks the start; Hibernate also skips it
+            for (long id = Math.max(1, end - ID_BLOCK_SIZE + 1); id <= end && n < rows; id++) {
+                if (end > 1) {
+                    ids[n++] = id;
+                }
+            }
+            if (n == rows) {
+                break;
+            }
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,36 @@
+package com.example.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "data-loader")
+public class DataLoaderProperties {
+
+    /**
+     * Inserts the demo orders at startup when the orders table is empty; existing data is never touched
+     */
+    private boolean sampleData = true;
+
+    /**
+     * Number of synthetic orders to generate at startup, for load and capacity tests against realistic volumes
+     */
+    private long syntheticOrders = 0;
+
+    /**
+     * Rows per JDBC batch and per transaction while generating synthetic orders
+     */
+    private int batchSize = 5000;
+
+    /**
+     * Random seed of the generated orders, so a data set can be reproduced; random when not set
+     */
+    private Long seed;
+
+    /**
+     * Creation times of synthetic orders are spread evenly over this period before now, oldest first
+     */
+    private Duration createdWithin = Duration.ofDays(365);
+}
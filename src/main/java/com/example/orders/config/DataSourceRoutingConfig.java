@@ -0,0 +1,85 @@
+package com.example.orders.config;
+
+import com.example.orders.datasource.ReplicaRoutingDataSource;
+import com.example.orders.web.ReadYourWritesFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the single auto-configured pool with a primary pool for writes and one pool per read
+ * replica, when {@code datasource-routing.enabled} is set
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource-routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceRoutingConfig {
+    
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                             DataSourceRoutingProperties routing,
+                                                             Environment environment,
+                                                             MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+        primary.setMetricsTrackerFactory(metrics);
+        
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (DataSourceRoutingProperties.Replica replica : routing.getReplicas()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(replica.getName());
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword());
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            pool.setMinimumIdle(replica.getMinimumIdle());
+            pool.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+            pool.setReadOnly(true);
+            // Start even when the replica is down; it is ejected instead of failing startup
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricsTrackerFactory(metrics);
+            replicas.put(replica.getName(), pool);
+        }
+        
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, replicas);
+        dataSource.startHealthChecks(routing.getHealthCheckInterval());
+        return dataSource;
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+    
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public ReadYourWritesFilter readYourWritesFilter(DataSourceRoutingProperties routing) {
+        return new ReadYourWritesFilter(routing.getReadYourWritesWindow());
+    }
+    
+    @Bean
+    public ReplicaHealthIndicator replicaHealthIndicator(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new ReplicaHealthIndicator(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "datasource-routing")
+public class DataSourceRoutingProperties {
+
+    /**
+     * Send read-only transactions to the replicas below; the primary is configured under spring.datasource
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often replicas are probed; a replica that fails gets no reads until a probe succeeds
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * How long reads of a client stay on the primary after it has written; should exceed the replication lag
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+
+        private String name;
+
+        private String url;
+
+        /**
+         * Defaults to the primary's username
+         */
+        private String username;
+
+        /**
+         * Defaults to the primary's password
+         */
+        private String password;
+
+        private int maximumPoolSize = 10;
+
+        private int minimumIdle = 2;
+
+        /**
+         * Kept short so that an unreachable replica costs little before it is ejected
+         */
+        private Duration connectionTimeout = Duration.ofMillis(250);
+    }
+}
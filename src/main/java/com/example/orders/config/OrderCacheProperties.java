@@ -0,0 +1,202 @@
+package com.example.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class OrderCacheProperties {
+
+    private Redis redis = new Redis();
+    private Local local = new Local();
+    private Invalidation invalidation = new Invalidation();
+    private RefreshAhead refreshAhead = new RefreshAhead();
+    private Warmup warmup = new Warmup();
+    private Negative negative = new Negative();
+
+    @Data
+    public static class Redis {
+
+        /**
+         * Time-to-live of entries in the shared Redis tier (L2)
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+
+        /**
+         * Encoding of cache values in Redis other than orders, which are always stored as their
+         * pre-serialized HTTP JSON; also used to read orders cached as objects by earlier releases.
+         * BINARY still reads entries written as JSON, but instances running an older version cannot
+         * read BINARY entries, so switch only once every instance has been upgraded.
+         */
+        private ValueFormat serializer = ValueFormat.JSON;
+
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    }
+
+    /**
+     * Circuit breaker around every Redis call on the request path. While it is open Redis is
+     * skipped: reads fall through to the local tier and the database, and writes are dropped.
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * Number of most recent Redis calls the failure and slow-call rates are computed over
+         */
+        private int slidingWindowSize = 50;
+
+        /**
+         * Calls recorded before the rates are evaluated at all
+         */
+        private int minimumNumberOfCalls = 20;
+
+        /**
+         * Percentage of failed calls, e.g. timeouts or refused connections, that opens the breaker
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * Calls slower than this count as slow even if they succeed, so a brownout opens the breaker too
+         */
+        private Duration slowCallThreshold = Duration.ofMillis(50);
+
+        /**
+         * Percentage of slow calls that opens the breaker
+         */
+        private float slowCallRateThreshold = 80;
+
+        /**
+         * Time Redis is skipped before a few trial calls test whether it has recovered
+         */
+        private Duration waitInOpenState = Duration.ofSeconds(10);
+
+        /**
+         * Trial calls let through after the wait; the breaker closes again if enough of them succeed
+         */
+        private int permittedCallsInHalfOpenState = 5;
+
+        /**
+         * Keys whose Redis write was dropped are remembered and evicted from Redis once it recovers,
+         * so that it cannot serve the values they replaced; past this many the whole cache is cleared
+         */
+        private int maxPendingEvictions = 10_000;
+    }
+
+    public enum ValueFormat {
+        JSON,
+        BINARY
+    }
+
+    @Data
+    public static class Local {
+
+        /**
+         * Maximum number of entries held per cache in the in-process tier (L1)
+         */
+        private long maxEntries = 10_000;
+
+        /**
+         * Time-to-live of entries in the in-process tier, kept well below the Redis TTL
+         * so that a missed invalidation message can only serve stale data briefly
+         */
+        private Duration ttl = Duration.ofMinutes(2);
+    }
+
+    /**
+     * Negative cache of order IDs the database did not have, kept in each instance
+     */
+    @Data
+    public static class Negative {
+
+        /**
+         * Answer repeated lookups of a missing order ID with a 404 without querying the database
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of missing IDs remembered; the least recently used are dropped first
+         */
+        private long maxEntries = 100_000;
+
+        /**
+         * How long a missing ID is remembered. Creating the order drops the entry on every instance, so this
+         * only bounds how long an order stays invisible here if the change broadcast does not arrive.
+         */
+        private Duration ttl = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Invalidation {
+
+        /**
+         * Redis pub/sub channel used to broadcast L1 invalidations to every instance
+         */
+        private String channel = "orders:cache:invalidation";
+
+        /**
+         * Delay between subscription attempts while Redis is unreachable
+         */
+        private Duration retryInterval = Duration.ofSeconds(5);
+
+        /**
+         * Subscribes in the background instead of during startup, so the first connection to Redis
+         * does not delay the first request
+         */
+        private boolean subscribeInBackground = false;
+    }
+
+    @Data
+    public static class RefreshAhead {
+
+        /**
+         * XFetch scaling factor: larger values refresh earlier before expiry, 0 disables refresh-ahead
+         */
+        private double beta = 1.0;
+    }
+
+    @Data
+    public static class Warmup {
+
+        /**
+         * Preload orders into Redis at startup, holding readiness until done, and after a full eviction
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of newest orders to preload
+         */
+        private int recentOrders = 1000;
+
+        /**
+         * Number of most frequently read orders to preload, taken from the sampled hot set
+         */
+        private int hotOrders = 1000;
+
+        /**
+         * Orders loaded from the database and written to Redis per pipelined round-trip
+         */
+        private int batchSize = 200;
+
+        /**
+         * Upper bound on the warm-up rate, so that it cannot saturate the database or Redis
+         */
+        private int ordersPerSecond = 5000;
+
+        /**
+         * Readiness is reported regardless once the startup warm-up has run this long
+         */
+        private Duration maxDuration = Duration.ofSeconds(60);
+
+        /**
+         * Sorted set in Redis counting sampled reads per order ID, shared by all instances
+         */
+        private String hotSetKey = "orders:hot";
+
+        /**
+         * Fraction of order reads recorded in the hot set
+         */
+        private double accessSampleRate = 0.01;
+    }
+}
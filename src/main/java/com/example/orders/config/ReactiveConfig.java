@@ -0,0 +1,128 @@
+package com.example.orders.config;
+
+import com.example.orders.repository.ReactiveOrderRepository;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * The reactive stack (reactive profile): WebFlux on Netty, orders read and written over R2DBC and
+ * cached through reactive Lettuce. JPA, Hikari and the blocking Redis template stay in place for
+ * startup loading, index maintenance and the other background work.
+ * <p>
+ * The R2DBC pool is deliberately not a bean: Spring Boot backs off from the JDBC DataSource when
+ * it finds a ConnectionFactory, and from the JPA transaction manager when it finds a reactive one.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveConfig implements WebFluxConfigurer, DisposableBean {
+    
+    private static final String H2_JDBC_PREFIX = "jdbc:h2:";
+    
+    private ConnectionPool connectionPool;
+    
+    /**
+     * Netty rather than Tomcat, which Spring Boot would otherwise pick because spring-boot-starter-web is present
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+    
+    @Bean
+    public ReactiveOrderRepository reactiveOrderRepository(R2dbcProperties r2dbcProperties,
+                                                           DataSourceProperties dataSourceProperties) {
+        R2dbcProperties.Pool pool = r2dbcProperties.getPool();
+        ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(connectionOptions(r2dbcProperties, dataSourceProperties)))
+                .name("r2dbc")
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxAcquireTime(pool.getMaxAcquireTime())
+                .build();
+        connectionPool = new ConnectionPool(configuration);
+        return new ReactiveOrderRepository(connectionPool);
+    }
+    
+    /**
+     * Values are written with the same serializer as the blocking template and the cache manager,
+     * so both stacks read each other's entries
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveOrderRedisTemplate(ReactiveRedisConnectionFactory connectionFactory,
+                                                                            RedisSerializer<Object> redisValueSerializer) {
+        RedisSerializationContext<String, Object> context = RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(redisValueSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+    
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        // Accept enum request parameters case-insensitively, e.g. mode=prefix
+        ApplicationConversionService.addApplicationConverters(registry);
+    }
+    
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+    
+    /**
+     * spring.r2dbc.url when set; otherwise the database of spring.datasource.url, which must be
+     * H2, so that both stacks share it without configuring it twice
+     */
+    static ConnectionFactoryOptions connectionOptions(R2dbcProperties r2dbcProperties,
+                                                      DataSourceProperties dataSourceProperties) {
+        if (r2dbcProperties.getUrl() != null) {
+            ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(r2dbcProperties.getUrl()).mutate();
+            if (r2dbcProperties.getUsername() != null) {
+                options.option(ConnectionFactoryOptions.USER, r2dbcProperties.getUsername());
+            }
+            if (r2dbcProperties.getPassword() != null) {
+                options.option(ConnectionFactoryOptions.PASSWORD, r2dbcProperties.getPassword());
+            }
+            return options.build();
+        }
+        String jdbcUrl = dataSourceProperties.determineUrl();
+        if (jdbcUrl == null || !jdbcUrl.startsWith(H2_JDBC_PREFIX)) {
+            throw new IllegalStateException("The reactive stack needs spring.r2dbc.url unless spring.datasource.url is an H2 URL");
+        }
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.builder()
+                .option(ConnectionFactoryOptions.DRIVER, "h2")
+                // The H2 driver takes the rest of the JDBC URL as is, settings included
+                .option(Option.valueOf("url"), jdbcUrl.substring(H2_JDBC_PREFIX.length()));
+        String username = dataSourceProperties.determineUsername();
+        if (username != null) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        String password = dataSourceProperties.determinePassword();
+        if (password != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        return options.build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.orders.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the Redis circuit breaker. An open breaker is DEGRADED rather than DOWN: the service
+ * keeps answering from the local tier and the database, so it is deliberately left out of the
+ * liveness and readiness groups.
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisCircuitBreakerHealthIndicator implements HealthIndicator {
+    
+    public static final Status DEGRADED = new Status("DEGRADED", "Redis is bypassed until it recovers");
+    
+    private final CircuitBreaker redisCircuitBreaker;
+    
+    @Override
+    public Health health() {
+        CircuitBreaker.State state = redisCircuitBreaker.getState();
+        CircuitBreaker.Metrics metrics = redisCircuitBreaker.getMetrics();
+        Health.Builder builder = switch (state) {
+            case OPEN, FORCED_OPEN -> Health.status(DEGRADED);
+            default -> Health.up();
+        };
+        return builder
+                .withDetail("state", state)
+                .withDetail("failureRate", metrics.getFailureRate())
+                .withDetail("slowCallRate", metrics.getSlowCallRate())
+                .withDetail("bufferedCalls", metrics.getNumberOfBufferedCalls())
+                .withDetail("failedCalls", metrics.getNumberOfFailedCalls())
+                .withDetail("slowCalls", metrics.getNumberOfSlowCalls())
+                .withDetail("notPermittedCalls", metrics.getNumberOfNotPermittedCalls())
+                .build();
+    }
+}
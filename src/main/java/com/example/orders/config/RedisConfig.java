@@ -1,5 +1,24 @@
 package com.example.orders.config;
 
+import com.example.orders.cache.CacheInvalidationListener;
+import com.example.orders.cache.CacheInvalidationPublisher;
+import com.example.orders.cache.OrderJsonRedisSerializer;
+import com.example.orders.cache.OrderResponseRedisSerializer;
+import com.example.orders.cache.RetryingMessageListenerContainer;
+import com.example.orders.cache.TwoTierCache;
+import com.example.orders.cache.TwoTierCacheManager;
+import com.example.orders.cache.TwoTierCacheMeterBinder;
+import com.example.orders.event.OrderChangeBroadcaster;
+import com.example.orders.service.CacheService;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,18 +26,98 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
-import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Executors;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(OrderCacheProperties.class)
+@Slf4j
 public class RedisConfig {
     
+    public static final String REDIS_CIRCUIT_BREAKER = "redis";
+    
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry() {
+        return CircuitBreakerRegistry.ofDefaults();
+    }
+    
+    /**
+     * Breaker shared by every Redis call on the request path, so that a slow or unreachable Redis
+     * costs one short timeout per call until it opens, and nothing at all once it is open
+     */
+    @Bean
+    public CircuitBreaker redisCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry,
+                                              OrderCacheProperties properties) {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(REDIS_CIRCUIT_BREAKER,
+                circuitBreakerConfig(properties.getRedis().getCircuitBreaker()));
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Redis circuit breaker {}", event.getStateTransition()));
+        return circuitBreaker;
+    }
+    
+    public static CircuitBreakerConfig circuitBreakerConfig(OrderCacheProperties.CircuitBreaker properties) {
+        return CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getMinimumNumberOfCalls())
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slowCallDurationThreshold(properties.getSlowCallThreshold())
+                .slowCallRateThreshold(properties.getSlowCallRateThreshold())
+                .waitDurationInOpenState(properties.getWaitInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(properties.getPermittedCallsInHalfOpenState())
+                // Recover without waiting for traffic to probe Redis, so health reflects it promptly
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // An unreadable entry says nothing about the health of Redis
+                .ignoreExceptions(SerializationException.class)
+                .build();
+    }
+    
+    /**
+     * State, call outcomes and failure rates of every breaker as resilience4j.circuitbreaker.* meters
+     */
+    @Bean
+    public TaggedCircuitBreakerMetrics circuitBreakerMetrics(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry);
+    }
+    
+    /**
+     * Value serializer shared by the cache manager and the template. Cached orders are stored as their
+     * pre-rendered HTTP JSON; the format chosen by cache.redis.serializer is used for any other value
+     * and to read orders that earlier releases cached as OrderResponse objects.
+     */
+    @Bean
+    public RedisSerializer<Object> redisValueSerializer(OrderCacheProperties properties) {
+        RedisSerializer<Object> json = jsonValueSerializer();
+        if (properties.getRedis().getSerializer() == OrderCacheProperties.ValueFormat.BINARY) {
+            return new OrderJsonRedisSerializer(new OrderResponseRedisSerializer(json));
+        }
+        return new OrderJsonRedisSerializer(json);
+    }
+    
+    /**
+     * JSON serializer with type metadata and java.time support so that order timestamps can be written
+     */
+    public static GenericJackson2JsonRedisSerializer jsonValueSerializer() {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        serializer.configure(objectMapper -> objectMapper
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+        return serializer;
+    }
+    
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisSerializer<Object> redisValueSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         
@@ -27,23 +126,74 @@ public class RedisConfig {
         template.setHashKeySerializer(new StringRedisSerializer());
         
         // Use JSON serializer for values
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(redisValueSerializer);
+        template.setHashValueSerializer(redisValueSerializer);
         
         template.afterPropertiesSet();
         return template;
     }
     
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate,
+                                                                 OrderCacheProperties properties,
+                                                                 CircuitBreaker redisCircuitBreaker) {
+        return new CacheInvalidationPublisher(stringRedisTemplate, properties.getInvalidation().getChannel(),
+                redisCircuitBreaker);
+    }
+    
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            OrderCacheProperties properties,
+                                            CacheInvalidationPublisher invalidationPublisher,
+                                            RedisSerializer<Object> redisValueSerializer,
+                                            CircuitBreaker redisCircuitBreaker) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(30)) // Cache entries expire after 30 minutes
+                .entryTtl(properties.getRedis().getTtl()) // Cache entries expire after 30 minutes by default
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisValueSerializer))
                 .disableCachingNullValues();
         
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
+                .initialCacheNames(Set.of(CacheService.ORDER_CACHE_NAME))
                 .build();
+        // Not a bean of its own, so initialise it here to create the initial caches
+        redisCacheManager.initializeCaches();
+        
+        // Layer a bounded in-process tier in front of every Redis cache
+        return new TwoTierCacheManager(redisCacheManager,
+                properties.getLocal().getMaxEntries(),
+                properties.getLocal().getTtl(),
+                invalidationPublisher,
+                properties.getRedis().getTtl(),
+                properties.getRefreshAhead().getBeta(),
+                Executors.newVirtualThreadPerTaskExecutor(),
+                redisCircuitBreaker,
+                properties.getRedis().getCircuitBreaker().getMaxPendingEvictions());
+    }
+    
+    /**
+     * Lets Spring Boot's cache metrics support bind every two-tier cache to the meter registry
+     */
+    @Bean
+    public CacheMeterBinderProvider<TwoTierCache> twoTierCacheMeterBinderProvider() {
+        return TwoTierCacheMeterBinder::new;
+    }
+    
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TwoTierCacheManager cacheManager,
+                                                                       CacheInvalidationPublisher invalidationPublisher,
+                                                                       OrderChangeBroadcaster orderChangeBroadcaster,
+                                                                       OrderCacheProperties properties) {
+        RedisMessageListenerContainer container =
+                new RetryingMessageListenerContainer(properties.getInvalidation().getRetryInterval(),
+                        properties.getInvalidation().isSubscribeInBackground());
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                new CacheInvalidationListener(cacheManager, invalidationPublisher.getInstanceId()),
+                new ChannelTopic(invalidationPublisher.getChannel()));
+        container.addMessageListener(orderChangeBroadcaster, new ChannelTopic(OrderChangeBroadcaster.CHANNEL));
+        return container;
     }
 }
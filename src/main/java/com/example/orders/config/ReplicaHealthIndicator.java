@@ -0,0 +1,30 @@
+package com.example.orders.config;
+
+import com.example.orders.datasource.ReplicaRoutingDataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+/**
+ * Reports which read replicas receive reads. Ejected replicas make the service DEGRADED rather
+ * than DOWN, since their reads fall back to the other replicas or the primary.
+ */
+@RequiredArgsConstructor
+public class ReplicaHealthIndicator implements HealthIndicator {
+    
+    public static final Status DEGRADED = new Status("DEGRADED", "Reads of ejected replicas go to the remaining databases");
+    
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+    
+    @Override
+    public Health health() {
+        boolean allHealthy = true;
+        Health.Builder builder = Health.up();
+        for (ReplicaRoutingDataSource.Replica replica : replicaRoutingDataSource.getReplicas()) {
+            allHealthy &= replica.isHealthy();
+            builder.withDetail(replica.getName(), replica.isHealthy() ? "UP" : "EJECTED");
+        }
+        return allHealthy ? builder.build() : builder.status(DEGRADED).build();
+    }
+}
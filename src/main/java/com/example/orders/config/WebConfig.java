@@ -0,0 +1,31 @@
+package com.example.orders.config;
+
+import com.example.orders.controller.OrderController;
+import com.example.orders.controller.ReactiveOrderController;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableConfigurationProperties({AccessLogProperties.class, AdmissionControlProperties.class, AnalyticsProperties.class, ChangeFeedProperties.class, DataLoaderProperties.class})
+public class WebConfig implements WebMvcConfigurer {
+    
+    /**
+     * Keeps the order API and its dependencies eager when beans are otherwise created on first use
+     * (faststart profile), so that the first lookup does not wait for them
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter orderApiLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(OrderController.class, ReactiveOrderController.class);
+    }
+    
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        // Accept enum request parameters case-insensitively, e.g. mode=prefix
+        ApplicationConversionService.addApplicationConverters(registry);
+    }
+}
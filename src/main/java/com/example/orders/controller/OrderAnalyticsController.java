@@ -0,0 +1,57 @@
+package com.example.orders.controller;
+
+import com.example.orders.dto.OrderAnalyticsResponse;
+import com.example.orders.repository.OrderAnalyticsRepository.TimeBucket;
+import com.example.orders.service.OrderAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregates over order amounts, optionally restricted to orders created in [from, to)
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/orders/analytics")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class OrderAnalyticsController {
+    
+    private final OrderAnalyticsService analyticsService;
+    
+    @GetMapping("/summary")
+    public ResponseEntity<OrderAnalyticsResponse> getSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.debug("Received request for order summary between {} and {}", from, to);
+        return ResponseEntity.ok(analyticsService.getSummary(from, to));
+    }
+    
+    @GetMapping("/customers")
+    public ResponseEntity<OrderAnalyticsResponse> getByCustomer(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.debug("Received request for top {} customers by amount between {} and {}", limit, from, to);
+        return ResponseEntity.ok(analyticsService.getByCustomer(from, to, limit));
+    }
+    
+    @GetMapping("/timeline")
+    public ResponseEntity<OrderAnalyticsResponse> getTimeline(
+            @RequestParam(defaultValue = "DAY") TimeBucket bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.debug("Received request for {} order timeline between {} and {}", bucket, from, to);
+        return ResponseEntity.ok(analyticsService.getTimeline(bucket, from, to));
+    }
+}
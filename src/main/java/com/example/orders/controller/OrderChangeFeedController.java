@@ -0,0 +1,87 @@
+package com.example.orders.controller;
+
+import com.example.orders.config.ChangeFeedProperties;
+import com.example.orders.dto.OrderChange;
+import com.example.orders.dto.OrderChangesResponse;
+import com.example.orders.service.OrderChangeFeed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Orders created, updated or deleted since a cursor, by polling, long-polling or as an event stream
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/orders/changes")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class OrderChangeFeedController {
+    
+    private static final int STREAM_PAGE_SIZE = 500;
+    
+    private final OrderChangeFeed changeFeed;
+    private final ChangeFeedProperties properties;
+    
+    @GetMapping
+    public CompletableFuture<ResponseEntity<OrderChangesResponse>> getChanges(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "0s") Duration wait) {
+        log.debug("Received request for up to {} order changes after {} waiting {}", limit, after, wait);
+        return changeFeed.poll(after, limit, wait).thenApply(ResponseEntity::ok);
+    }
+    
+    /**
+     * One {@code order-change} event per change, with the cursor after it as the event ID, so a
+     * reconnecting client resumes through the Last-Event-ID header
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) String after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        String cursor = lastEventId != null ? lastEventId : after;
+        log.debug("Received request to stream order changes after {}", cursor);
+        
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        OrderChangeFeed.Subscription subscription = changeFeed.subscribe(cursor, STREAM_PAGE_SIZE,
+                new OrderChangeFeed.Listener() {
+                    @Override
+                    public void onChanges(OrderChangesResponse page) throws IOException {
+                        for (OrderChange change : page.getChanges()) {
+                            emitter.send(SseEmitter.event()
+                                    .id(OrderChangeFeed.Cursor.of(change).toString())
+                                    .name("order-change")
+                                    .data(change, MediaType.APPLICATION_JSON));
+                        }
+                    }
+                    
+                    @Override
+                    public void onHeartbeat() throws IOException {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    
+                    @Override
+                    public void onError(Exception ex) {
+                        emitter.completeWithError(ex);
+                    }
+                });
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(ex -> subscription.close());
+        return emitter;
+    }
+}
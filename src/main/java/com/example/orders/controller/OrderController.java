@@ -1,105 +1,277 @@
 package com.example.orders.controller;
 
+import com.example.orders.dto.AmountStatsResponse;
+import com.example.orders.dto.BatchOrderResponse;
+import com.example.orders.dto.BatchOrderResult;
+import com.example.orders.dto.CacheStatsResponse;
+import com.example.orders.dto.CacheStatusResponse;
+import com.example.orders.dto.OrderJson;
+import com.example.orders.dto.OrderLookupResponse;
+import com.example.orders.dto.OrderPageResponse;
 import com.example.orders.dto.OrderRequest;
 import com.example.orders.dto.OrderResponse;
+import com.example.orders.index.CustomerNameIndex;
 import com.example.orders.service.OrderService;
 import com.example.orders.service.CacheService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/orders")
 @RequiredArgsConstructor
 @Slf4j
 @CrossOrigin(origins = "*")
 public class OrderController {
     
+    // Each NDJSON chunk is inserted in its own transaction
+    private static final int NDJSON_CHUNK_SIZE = 1000;
+    
     private final OrderService orderService;
     private final CacheService cacheService;
+    private final ObjectMapper objectMapper;
     
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody OrderRequest request) {
-        log.info("Received request to create order for customer: {}", request.getCustomerName());
+        log.debug("Received request to create order for customer: {}", request.getCustomerName());
         OrderResponse response = orderService.createOrder(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        return withETag(ResponseEntity.status(HttpStatus.CREATED), response);
+    }
+    
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchOrderResponse> createOrders(@RequestBody List<OrderRequest> requests) {
+        log.debug("Received request to create batch of {} orders", requests.size());
+        List<BatchOrderResult> results = orderService.createOrders(requests, 0);
+        return ResponseEntity.ok(BatchOrderResponse.from(results));
+    }
+    
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchOrderResponse> createOrdersFromStream(InputStream body) throws IOException {
+        log.debug("Received request to create orders from NDJSON stream");
+        List<BatchOrderResult> results = new ArrayList<>();
+        List<OrderRequest> chunk = new ArrayList<>(NDJSON_CHUNK_SIZE);
+        int index = 0;
+        
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(parseOrderRequest(line));
+            if (chunk.size() == NDJSON_CHUNK_SIZE) {
+                results.addAll(orderService.createOrders(chunk, index));
+                index += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(orderService.createOrders(chunk, index));
+        }
+        return ResponseEntity.ok(BatchOrderResponse.from(results));
     }
     
     @GetMapping
     public ResponseEntity<List<OrderResponse>> getAllOrders() {
-        log.info("Received request to get all orders");
+        log.debug("Received request to get all orders");
         List<OrderResponse> orders = orderService.getAllOrders();
         return ResponseEntity.ok(orders);
     }
     
-    @GetMapping("/{id}")
-    public ResponseEntity<OrderResponse> getOrderById(@PathVariable @NotNull Long id) {
-        log.info("Received request to get order with ID: {}", id);
-        OrderResponse response = orderService.getOrderById(id);
+    @GetMapping(params = "limit")
+    public ResponseEntity<OrderPageResponse> getOrdersPage(@RequestParam(required = false) Long after,
+                                                           @RequestParam int limit) {
+        log.debug("Received request to get orders page after ID: {} with limit: {}", after, limit);
+        OrderPageResponse page = orderService.getOrdersPage(after, limit);
+        return ResponseEntity.ok(page);
+    }
+    
+    @GetMapping(params = "ids")
+    public ResponseEntity<OrderLookupResponse> getOrdersByIds(@RequestParam List<Long> ids) {
+        log.debug("Received request to get {} orders by ID", ids.size());
+        OrderLookupResponse response = orderService.getOrdersByIds(ids);
         return ResponseEntity.ok(response);
     }
     
+    @PostMapping("/lookup")
+    public ResponseEntity<OrderLookupResponse> lookupOrders(@RequestBody List<Long> ids) {
+        log.debug("Received request to look up {} orders by ID", ids.size());
+        OrderLookupResponse response = orderService.getOrdersByIds(ids);
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        log.debug("Received request to export all orders");
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                orderService.streamAllOrders(order -> {
+                    try {
+                        generator.writeObject(order);
+                        generator.writeRaw('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
+    /**
+     * Writes the cached JSON bytes of the order as the body, without going through Jackson.
+     * Answers a matching If-None-Match with 304 and no body; the ETag is the order version, so the
+     * check needs only the cached order.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<byte[]> getOrderById(@PathVariable @NotNull Long id) {
+        log.debug("Received request to get order with ID: {}", id);
+        OrderJson order = orderService.getOrderById(id);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (order.getVersion() != null) {
+            builder.eTag(eTag(order.getVersion()));
+        }
+        return builder.body(order.getJson());
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<OrderResponse> updateOrder(@PathVariable @NotNull Long id, 
-                                                   @Valid @RequestBody OrderRequest request) {
-        log.info("Received request to update order with ID: {}", id);
-        OrderResponse response = orderService.updateOrder(id, request);
-        return ResponseEntity.ok(response);
+                                                   @Valid @RequestBody OrderRequest request,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("Received request to update order with ID: {}", id);
+        OrderResponse response = orderService.updateOrder(id, request, expectedVersion(ifMatch));
+        return withETag(ResponseEntity.ok(), response);
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteOrder(@PathVariable @NotNull Long id) {
-        log.info("Received request to delete order with ID: {}", id);
-        orderService.deleteOrder(id);
+    public ResponseEntity<Void> deleteOrder(@PathVariable @NotNull Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("Received request to delete order with ID: {}", id);
+        orderService.deleteOrder(id, expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
     
     @GetMapping("/search/customer")
-    public ResponseEntity<List<OrderResponse>> searchByCustomerName(@RequestParam String customerName) {
-        log.info("Received request to search orders by customer name: {}", customerName);
-        List<OrderResponse> orders = orderService.searchByCustomerName(customerName);
+    public ResponseEntity<List<OrderResponse>> searchByCustomerName(
+            @RequestParam String customerName,
+            @RequestParam(defaultValue = "SUBSTRING") CustomerNameIndex.MatchMode mode,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.debug("Received request to search orders by customer name: {}", customerName);
+        List<OrderResponse> orders = orderService.searchByCustomerName(customerName, mode, limit);
         return ResponseEntity.ok(orders);
     }
     
     @GetMapping("/search/amount")
     public ResponseEntity<List<OrderResponse>> searchByAmountRange(@RequestParam BigDecimal minAmount, 
-                                                                 @RequestParam BigDecimal maxAmount) {
-        log.info("Received request to search orders by amount range: {} - {}", minAmount, maxAmount);
-        List<OrderResponse> orders = orderService.searchByAmountRange(minAmount, maxAmount);
+                                                                 @RequestParam BigDecimal maxAmount,
+                                                                 @RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(defaultValue = "100") int size) {
+        log.debug("Received request to search orders by amount range: {} - {}", minAmount, maxAmount);
+        List<OrderResponse> orders = orderService.searchByAmountRange(minAmount, maxAmount, page, size);
         return ResponseEntity.ok(orders);
     }
     
+    @GetMapping("/search/amount/stats")
+    public ResponseEntity<AmountStatsResponse> getAmountStats(@RequestParam BigDecimal minAmount,
+                                                              @RequestParam BigDecimal maxAmount) {
+        log.debug("Received request for amount statistics in range: {} - {}", minAmount, maxAmount);
+        AmountStatsResponse stats = orderService.getAmountStats(minAmount, maxAmount);
+        return ResponseEntity.ok(stats);
+    }
+    
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
-        log.info("Health check endpoint called");
+        log.debug("Health check endpoint called");
         return ResponseEntity.ok("Orders microservice is running!");
     }
     
     // Cache Management Endpoints
     @PostMapping("/cache/evict/{id}")
     public ResponseEntity<String> evictOrderFromCache(@PathVariable @NotNull Long id) {
-        log.info("Received request to evict order with ID: {} from cache", id);
+        log.debug("Received request to evict order with ID: {} from cache", id);
         cacheService.evictOrder(id);
         return ResponseEntity.ok("Order with ID " + id + " evicted from cache");
     }
     
     @PostMapping("/cache/evict/all")
     public ResponseEntity<String> evictAllOrdersFromCache() {
-        log.info("Received request to evict all orders from cache");
+        log.debug("Received request to evict all orders from cache");
         cacheService.evictAllOrders();
         return ResponseEntity.ok("All orders evicted from cache");
     }
     
     @GetMapping("/cache/status")
-    public ResponseEntity<String> getCacheStatus() {
-        log.info("Received request for cache status");
-        return ResponseEntity.ok("Redis cache is enabled and configured");
+    public ResponseEntity<CacheStatusResponse> getCacheStatus() {
+        log.debug("Received request for cache status");
+        return ResponseEntity.ok(cacheService.getStatus());
+    }
+    
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, CacheStatsResponse>> getCacheStatistics() {
+        log.debug("Received request for cache statistics");
+        return ResponseEntity.ok(cacheService.getStatistics());
+    }
+    
+    static ResponseEntity<OrderResponse> withETag(ResponseEntity.BodyBuilder builder, OrderResponse order) {
+        if (order.getVersion() != null) {
+            builder.eTag(eTag(order.getVersion()));
+        }
+        return builder.body(order);
+    }
+    
+    static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+    
+    /**
+     * The version named by an If-Match header, or null when there is no precondition. If-Match
+     * compares strongly, so a weak or foreign entity tag can never match and yields -1.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ex) {
+                // Not one of ours
+            }
+        }
+        return -1L;
+    }
+    
+    private OrderRequest parseOrderRequest(String line) {
+        try {
+            return objectMapper.readValue(line, OrderRequest.class);
+        } catch (JsonProcessingException ex) {
+            // A null entry is reported back as a malformed item
+            return null;
+        }
     }
 }
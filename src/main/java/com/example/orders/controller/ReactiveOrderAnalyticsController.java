@@ -0,0 +1,67 @@
+package com.example.orders.controller;
+
+import com.example.orders.dto.OrderAnalyticsResponse;
+import com.example.orders.repository.OrderAnalyticsRepository.TimeBucket;
+import com.example.orders.service.OrderAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Callable;
+
+/**
+ * The aggregates of {@link OrderAnalyticsController} on WebFlux, for the reactive profile. They are
+ * computed over JPA like on the servlet stack, on the bounded elastic scheduler.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/orders/analytics")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ReactiveOrderAnalyticsController {
+    
+    private final OrderAnalyticsService analyticsService;
+    
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<OrderAnalyticsResponse>> getSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.debug("Received request for order summary between {} and {}", from, to);
+        return offload(() -> analyticsService.getSummary(from, to));
+    }
+    
+    @GetMapping("/customers")
+    public Mono<ResponseEntity<OrderAnalyticsResponse>> getByCustomer(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.debug("Received request for top {} customers by amount between {} and {}", limit, from, to);
+        return offload(() -> analyticsService.getByCustomer(from, to, limit));
+    }
+    
+    @GetMapping("/timeline")
+    public Mono<ResponseEntity<OrderAnalyticsResponse>> getTimeline(
+            @RequestParam(defaultValue = "DAY") TimeBucket bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.debug("Received request for {} order timeline between {} and {}", bucket, from, to);
+        return offload(() -> analyticsService.getTimeline(bucket, from, to));
+    }
+    
+    private static Mono<ResponseEntity<OrderAnalyticsResponse>> offload(Callable<OrderAnalyticsResponse> query) {
+        return Mono.fromCallable(query)
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok);
+    }
+}
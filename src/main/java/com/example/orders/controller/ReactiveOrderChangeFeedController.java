@@ -0,0 +1,94 @@
+package com.example.orders.controller;
+
+import com.example.orders.config.ChangeFeedProperties;
+import com.example.orders.dto.OrderChange;
+import com.example.orders.dto.OrderChangesResponse;
+import com.example.orders.service.OrderChangeFeed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+/**
+ * The change feed of {@link OrderChangeFeedController} on WebFlux, for the reactive profile: same
+ * paths, parameters, bodies and events. Pages are read over JPA on the bounded elastic scheduler,
+ * and long-polls and streams wait without holding any thread.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/orders/changes")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ReactiveOrderChangeFeedController {
+    
+    private static final int STREAM_PAGE_SIZE = 500;
+    
+    private final OrderChangeFeed changeFeed;
+    private final ChangeFeedProperties properties;
+    
+    @GetMapping
+    public Mono<ResponseEntity<OrderChangesResponse>> getChanges(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "0s") Duration wait) {
+        log.debug("Received request for up to {} order changes after {} waiting {}", limit, after, wait);
+        return Mono.fromCallable(() -> changeFeed.poll(after, limit, wait))
+                .subscribeOn(Schedulers.boundedElastic())
+                // A client that goes away ends its long-poll
+                .flatMap(poll -> Mono.fromFuture(poll, true))
+                .map(ResponseEntity::ok);
+    }
+    
+    /**
+     * One {@code order-change} event per change, with the cursor after it as the event ID, so a
+     * reconnecting client resumes through the Last-Event-ID header
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<OrderChange>> streamChanges(
+            @RequestParam(required = false) String after,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        String cursor = lastEventId != null ? lastEventId : after;
+        log.debug("Received request to stream order changes after {}", cursor);
+        
+        return Flux.<ServerSentEvent<OrderChange>>create(sink -> {
+                    OrderChangeFeed.Subscription subscription = changeFeed.subscribe(cursor, STREAM_PAGE_SIZE,
+                            new OrderChangeFeed.Listener() {
+                                @Override
+                                public void onChanges(OrderChangesResponse page) {
+                                    for (OrderChange change : page.getChanges()) {
+                                        sink.next(ServerSentEvent.builder(change)
+                                                .id(OrderChangeFeed.Cursor.of(change).toString())
+                                                .event("order-change")
+                                                .build());
+                                    }
+                                }
+                                
+                                @Override
+                                public void onHeartbeat() {
+                                    sink.next(ServerSentEvent.<OrderChange>builder().comment("heartbeat").build());
+                                }
+                                
+                                @Override
+                                public void onError(Exception ex) {
+                                    sink.error(ex);
+                                }
+                            });
+                    sink.onDispose(subscription::close);
+                })
+                .take(properties.getStreamTimeout());
+    }
+}
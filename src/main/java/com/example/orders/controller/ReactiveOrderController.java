@@ -0,0 +1,217 @@
+package com.example.orders.controller;
+
+import com.example.orders.dto.AmountStatsResponse;
+import com.example.orders.dto.BatchOrderResponse;
+import com.example.orders.dto.BatchOrderResult;
+import com.example.orders.dto.CacheStatsResponse;
+import com.example.orders.dto.CacheStatusResponse;
+import com.example.orders.dto.OrderLookupResponse;
+import com.example.orders.dto.OrderPageResponse;
+import com.example.orders.dto.OrderRequest;
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.index.CustomerNameIndex;
+import com.example.orders.service.ReactiveCacheService;
+import com.example.orders.service.ReactiveOrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The order API of {@link OrderController} on WebFlux, for the reactive profile: same paths,
+ * parameters, bodies, status codes and ETags. Listings and exports are streamed as rows arrive.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/orders")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ReactiveOrderController {
+    
+    // Each NDJSON chunk is inserted in its own transaction
+    private static final int NDJSON_CHUNK_SIZE = 1000;
+    
+    private final ReactiveOrderService orderService;
+    private final ReactiveCacheService cacheService;
+    private final ObjectMapper objectMapper;
+    
+    @PostMapping
+    public Mono<ResponseEntity<OrderResponse>> createOrder(@Valid @RequestBody OrderRequest request) {
+        log.debug("Received request to create order for customer: {}", request.getCustomerName());
+        return orderService.createOrder(request)
+                .map(response -> OrderController.withETag(ResponseEntity.status(HttpStatus.CREATED), response));
+    }
+    
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<BatchOrderResponse>> createOrders(@RequestBody List<OrderRequest> requests) {
+        log.debug("Received request to create batch of {} orders", requests.size());
+        return orderService.createOrders(requests, 0)
+                .map(results -> ResponseEntity.ok(BatchOrderResponse.from(results)));
+    }
+    
+    /**
+     * Lines are parsed and inserted chunk by chunk as they arrive, so the body is never held whole
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<BatchOrderResponse>> createOrdersFromStream(@RequestBody Flux<String> lines) {
+        log.debug("Received request to create orders from NDJSON stream");
+        return lines
+                .filter(line -> !line.isBlank())
+                .buffer(NDJSON_CHUNK_SIZE)
+                .index()
+                // Every chunk but the last is full, so a chunk's first index follows from its position
+                .concatMap(chunk -> orderService.createOrders(parseOrderRequests(chunk.getT2()),
+                        (int) (chunk.getT1() * NDJSON_CHUNK_SIZE)))
+                .<List<BatchOrderResult>>collect(ArrayList::new, List::addAll)
+                .map(results -> ResponseEntity.ok(BatchOrderResponse.from(results)));
+    }
+    
+    @GetMapping
+    public Flux<OrderResponse> getAllOrders() {
+        log.debug("Received request to get all orders");
+        return orderService.getAllOrders();
+    }
+    
+    @GetMapping(params = "limit")
+    public Mono<OrderPageResponse> getOrdersPage(@RequestParam(required = false) Long after,
+                                                 @RequestParam int limit) {
+        log.debug("Received request to get orders page after ID: {} with limit: {}", after, limit);
+        return orderService.getOrdersPage(after, limit);
+    }
+    
+    @GetMapping(params = "ids")
+    public Mono<OrderLookupResponse> getOrdersByIds(@RequestParam List<Long> ids) {
+        log.debug("Received request to get {} orders by ID", ids.size());
+        return orderService.getOrdersByIds(ids);
+    }
+    
+    @PostMapping("/lookup")
+    public Mono<OrderLookupResponse> lookupOrders(@RequestBody List<Long> ids) {
+        log.debug("Received request to look up {} orders by ID", ids.size());
+        return orderService.getOrdersByIds(ids);
+    }
+    
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<OrderResponse> exportOrders() {
+        log.debug("Received request to export all orders");
+        return orderService.getAllOrders();
+    }
+    
+    /**
+     * Writes the cached JSON bytes of the order as the body, without going through Jackson.
+     * WebFlux answers a matching If-None-Match with 304 and no body.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<byte[]>> getOrderById(@PathVariable @NotNull Long id) {
+        log.debug("Received request to get order with ID: {}", id);
+        return orderService.getOrderById(id).map(order -> {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+            if (order.getVersion() != null) {
+                builder.eTag(OrderController.eTag(order.getVersion()));
+            }
+            return builder.body(order.getJson());
+        });
+    }
+    
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<OrderResponse>> updateOrder(@PathVariable @NotNull Long id,
+                                                           @Valid @RequestBody OrderRequest request,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("Received request to update order with ID: {}", id);
+        return orderService.updateOrder(id, request, OrderController.expectedVersion(ifMatch))
+                .map(response -> OrderController.withETag(ResponseEntity.ok(), response));
+    }
+    
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteOrder(@PathVariable @NotNull Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("Received request to delete order with ID: {}", id);
+        return orderService.deleteOrder(id, OrderController.expectedVersion(ifMatch))
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+    
+    @GetMapping("/search/customer")
+    public Flux<OrderResponse> searchByCustomerName(
+            @RequestParam String customerName,
+            @RequestParam(defaultValue = "SUBSTRING") CustomerNameIndex.MatchMode mode,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.debug("Received request to search orders by customer name: {}", customerName);
+        return orderService.searchByCustomerName(customerName, mode, limit);
+    }
+    
+    @GetMapping("/search/amount")
+    public Flux<OrderResponse> searchByAmountRange(@RequestParam BigDecimal minAmount,
+                                                   @RequestParam BigDecimal maxAmount,
+                                                   @RequestParam(defaultValue = "0") int page,
+                                                   @RequestParam(defaultValue = "100") int size) {
+        log.debug("Received request to search orders by amount range: {} - {}", minAmount, maxAmount);
+        return orderService.searchByAmountRange(minAmount, maxAmount, page, size);
+    }
+    
+    @GetMapping("/search/amount/stats")
+    public Mono<AmountStatsResponse> getAmountStats(@RequestParam BigDecimal minAmount,
+                                                    @RequestParam BigDecimal maxAmount) {
+        log.debug("Received request for amount statistics in range: {} - {}", minAmount, maxAmount);
+        return orderService.getAmountStats(minAmount, maxAmount);
+    }
+    
+    @GetMapping("/health")
+    public Mono<String> healthCheck() {
+        log.debug("Health check endpoint called");
+        return Mono.just("Orders microservice is running!");
+    }
+    
+    // Cache Management Endpoints
+    @PostMapping("/cache/evict/{id}")
+    public Mono<String> evictOrderFromCache(@PathVariable @NotNull Long id) {
+        log.debug("Received request to evict order with ID: {} from cache", id);
+        return cacheService.evictOrder(id).thenReturn("Order with ID " + id + " evicted from cache");
+    }
+    
+    @PostMapping("/cache/evict/all")
+    public Mono<String> evictAllOrdersFromCache() {
+        log.debug("Received request to evict all orders from cache");
+        return cacheService.evictAllOrders().thenReturn("All orders evicted from cache");
+    }
+    
+    @GetMapping("/cache/status")
+    public Mono<CacheStatusResponse> getCacheStatus() {
+        log.debug("Received request for cache status");
+        return cacheService.getStatus();
+    }
+    
+    @GetMapping("/cache/stats")
+    public Mono<Map<String, CacheStatsResponse>> getCacheStatistics() {
+        log.debug("Received request for cache statistics");
+        return cacheService.getStatistics();
+    }
+    
+    private List<OrderRequest> parseOrderRequests(List<String> lines) {
+        List<OrderRequest> requests = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            try {
+                requests.add(objectMapper.readValue(line, OrderRequest.class));
+            } catch (JsonProcessingException ex) {
+                // A null entry is reported back as a malformed item
+                requests.add(null);
+            }
+        }
+        return requests;
+    }
+}
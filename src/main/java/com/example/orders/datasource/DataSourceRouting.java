@@ -0,0 +1,71 @@
+package com.example.orders.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread routing hints for {@link ReplicaRoutingDataSource}.
+ * <p>
+ * Reads that must see every committed write, such as those that fill caches, rebuild indexes or
+ * advance a change feed cursor, run inside {@link #onPrimary}. A thread that has committed a
+ * write is pinned to the primary for the rest of its request, and the request's listener is told
+ * so that later requests of the same client can be pinned as well.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+    private static final ThreadLocal<Runnable> WRITE_LISTENER = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PINNED_TO_PRIMARY.get();
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PINNED_TO_PRIMARY.remove();
+            }
+        }
+    }
+
+    public static void onPrimary(Runnable action) {
+        onPrimary(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    /**
+     * Pins the current thread until {@link #clear()}, e.g. for a request of a client that wrote recently
+     */
+    public static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    /**
+     * Runs the listener once, on the current thread, when it next commits a write
+     */
+    public static void onWriteCommitted(Runnable listener) {
+        WRITE_LISTENER.set(listener);
+    }
+
+    public static void clear() {
+        PINNED_TO_PRIMARY.remove();
+        WRITE_LISTENER.remove();
+    }
+
+    static void writeCommitted() {
+        pinToPrimary();
+        Runnable listener = WRITE_LISTENER.get();
+        if (listener != null) {
+            WRITE_LISTENER.remove();
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.orders.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to the healthy replicas in turn and everything
+ * else to the primary.
+ * <p>
+ * The transaction's read-only flag is only known once it has begun, after JPA has asked for a
+ * connection, so this data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which fetches the
+ * real connection on the first statement.
+ * <p>
+ * A replica that fails to hand out a connection, or fails a periodic probe, gets no reads until
+ * a probe succeeds again; its reads go to the other replicas, or to the primary when none is left.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-health-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+    }
+
+    public void startHealthChecks(Duration interval) {
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public List<Replica> getReplicas() {
+        return List.copyOf(replicas);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || DataSourceRouting.isPinnedToPrimary()) {
+            return primaryConnection();
+        }
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException | RuntimeException ex) {
+                markUnhealthy(replica, ex);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Routed connections use the credentials of each pool");
+    }
+
+    /**
+     * Probes every replica, ejecting those that fail and readmitting those that have recovered
+     */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(1)) {
+                    throw new SQLException("Connection is not valid");
+                }
+                if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("Replica {} recovered, routing reads to it again", replica.name);
+                }
+            } catch (SQLException | RuntimeException ex) {
+                markUnhealthy(replica, ex);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection primaryConnection() throws SQLException {
+        Connection connection = primary.getConnection();
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    DataSourceRouting.writeCommitted();
+                }
+            });
+        }
+        return connection;
+    }
+
+    private void markUnhealthy(Replica replica, Exception ex) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Replica {} ejected from read routing: {}", replica.name, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmountStatsResponse {
+    
+    private long count;
+    private BigDecimal sum;
+    private BigDecimal average;
+    private BigDecimal min;
+    private BigDecimal max;
+    private BigDecimal p50;
+    private BigDecimal p90;
+    private BigDecimal p99;
+}
@@ -0,0 +1,25 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderResponse {
+    
+    private int received;
+    private int created;
+    private int failed;
+    private List<BatchOrderResult> results;
+    
+    public static BatchOrderResponse from(List<BatchOrderResult> results) {
+        int created = (int) results.stream()
+                .filter(result -> result.getStatus() == BatchOrderResult.Status.CREATED)
+                .count();
+        return new BatchOrderResponse(results.size(), created, results.size() - created, results);
+    }
+}
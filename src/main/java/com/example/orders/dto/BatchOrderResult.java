@@ -0,0 +1,31 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderResult {
+    
+    public enum Status {
+        CREATED,
+        INVALID
+    }
+    
+    private int index;
+    private Status status;
+    private OrderResponse order;
+    private List<String> errors;
+    
+    public static BatchOrderResult created(int index, OrderResponse order) {
+        return new BatchOrderResult(index, Status.CREATED, order, null);
+    }
+    
+    public static BatchOrderResult invalid(int index, List<String> errors) {
+        return new BatchOrderResult(index, Status.INVALID, null, errors);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheLoadStats {
+
+    private long loads;
+    private long loadFailures;
+    private double averageLoadMillis;
+    private double maxLoadMillis;
+    private long coalescedLoads;
+    private long refreshes;
+    private long refreshFailures;
+}
@@ -0,0 +1,18 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+
+    private List<CacheTierStats> tiers;
+    private CacheLoadStats loads;
+}
@@ -0,0 +1,48 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatusResponse {
+
+    private boolean redisAvailable;
+    
+    /**
+     * Keys in the whole Redis database (DBSIZE), of every keyspace and not only the caches, or null
+     * when Redis is unreachable
+     */
+    private Long redisServerKeys;
+    
+    /**
+     * Memory used by the whole Redis server as reported by INFO, or null when Redis is unreachable
+     */
+    private Long redisServerUsedMemoryBytes;
+    
+    private Map<String, CacheSummary> caches;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheSummary {
+
+        private long localEntries;
+        /** Entries of this cache in Redis, counted with SCAN, or null when Redis is unreachable */
+        private Long redisEntries;
+        private long requests;
+        private double hitRatio;
+        private double localHitRatio;
+        private long redisErrors;
+        private long loads;
+        private double averageLoadMillis;
+        private double maxLoadMillis;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheTierStats {
+
+    private String tier;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long puts;
+    private long evictions;
+    private long invalidations;
+    private long errors;
+}
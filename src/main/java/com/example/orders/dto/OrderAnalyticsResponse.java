@@ -0,0 +1,29 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderAnalyticsResponse {
+    
+    /**
+     * none, customer, or the time bucket
+     */
+    private String groupBy;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    
+    /**
+     * When the aggregates were computed; results are cached briefly, so this may trail the request
+     */
+    private LocalDateTime generatedAt;
+    private List<OrderGroupStats> groups;
+}
@@ -0,0 +1,31 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderChange {
+    
+    public enum Type {
+        UPSERT,
+        DELETE
+    }
+    
+    private Type type;
+    private Long id;
+    private LocalDateTime changedAt;
+    private OrderResponse order;
+    
+    public static OrderChange upserted(OrderResponse order) {
+        return new OrderChange(Type.UPSERT, order.getId(), order.getUpdatedAt(), order);
+    }
+    
+    public static OrderChange deleted(Long id, LocalDateTime deletedAt) {
+        return new OrderChange(Type.DELETE, id, deletedAt, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderChangesResponse {
+    
+    private List<OrderChange> changes;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,28 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderGroupStats {
+    
+    /**
+     * Customer name or bucket start; absent for a summary over all orders
+     */
+    private String group;
+    private long count;
+    private BigDecimal sum;
+    private BigDecimal average;
+    private BigDecimal min;
+    private BigDecimal max;
+    private BigDecimal p50;
+    private BigDecimal p90;
+    private BigDecimal p99;
+}
@@ -0,0 +1,55 @@
+package com.example.orders.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An order as the exact JSON bytes the API returns for it. Orders are rendered once, when they
+ * are cached, so a cache hit is written to the response as is instead of being decoded into an
+ * {@link OrderResponse} and encoded again. Inside larger responses it is written verbatim.
+ */
+@Getter
+@AllArgsConstructor
+public final class OrderJson extends JsonSerializable.Base {
+    
+    private final Long id;
+    
+    /**
+     * Entity version the JSON was rendered from, for the ETag
+     */
+    private final Long version;
+    
+    private final byte[] json;
+    
+    /**
+     * Render an order with the application's ObjectMapper, so the bytes match what the HTTP
+     * message converter would write for the {@link OrderResponse} itself
+     */
+    public static OrderJson render(ObjectMapper objectMapper, OrderResponse order) {
+        try {
+            return new OrderJson(order.getId(), order.getVersion(), objectMapper.writeValueAsBytes(order));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to render order " + order.getId() + " as JSON", ex);
+        }
+    }
+    
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeRawValue(new String(json, StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers,
+                                  TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, serializers);
+    }
+}
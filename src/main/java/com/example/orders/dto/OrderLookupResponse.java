@@ -0,0 +1,23 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLookupResponse {
+    
+    /**
+     * Orders found, in the order their IDs were requested, written as cached
+     */
+    private List<OrderJson> orders;
+    
+    /**
+     * Requested IDs with no matching order
+     */
+    private List<Long> missingIds;
+}
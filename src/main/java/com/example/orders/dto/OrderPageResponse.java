@@ -0,0 +1,17 @@
+package com.example.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponse {
+    
+    private List<OrderResponse> orders;
+    private Long nextCursor;
+    private boolean hasMore;
+}
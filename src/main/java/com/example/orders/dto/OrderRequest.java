@@ -1,8 +1,10 @@
 package com.example.orders.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -11,9 +13,11 @@ import java.math.BigDecimal;
 public class OrderRequest {
     
     @NotBlank(message = "Customer name is required")
+    @Size(max = 100, message = "Customer name must be at most 100 characters")
     private String customerName;
     
     @NotNull(message = "Amount is required")
     @Positive(message = "Amount must be positive")
+    @Digits(integer = 8, fraction = 2, message = "Amount must have at most 8 digits before and 2 after the decimal point")
     private BigDecimal amount;
 }
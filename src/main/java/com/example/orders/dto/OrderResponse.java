@@ -13,4 +13,5 @@ public class OrderResponse {
     private BigDecimal amount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 }
@@ -10,16 +10,23 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_name", columnList = "customer_name"),
+        @Index(name = "idx_orders_amount", columnList = "amount"),
+        @Index(name = "idx_orders_created_at", columnList = "created_at"),
+        @Index(name = "idx_orders_updated_at_id", columnList = "updated_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Customer name is required")
@@ -37,14 +44,31 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    /**
+     * Incremented on every update; a write based on an older version fails instead of overwriting
+     */
+    @Version
+    @Column(name = "version")
+    private Long version;
+    
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        // Read the clock once: it is not free, and both stamps should be identical on insert
+        LocalDateTime now = now();
+        createdAt = now;
+        updatedAt = now;
     }
     
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
+        updatedAt = now();
+    }
+    
+    /**
+     * The current time at the microsecond precision of the timestamp columns, so stamps held in
+     * memory, in caches and in change feed cursors equal the stored ones
+     */
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 }
@@ -0,0 +1,29 @@
+package com.example.orders.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a deleted order, kept for a retention period so that change feed consumers learn
+ * about deletes; the order row itself is removed
+ */
+@Entity
+@Table(name = "order_tombstones", indexes = {
+        @Index(name = "idx_order_tombstones_deleted_at_id", columnList = "deleted_at, order_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTombstone {
+    
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
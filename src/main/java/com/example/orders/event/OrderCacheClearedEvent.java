@@ -0,0 +1,8 @@
+package com.example.orders.event;
+
+/**
+ * Published after every order has been evicted from the cache on request, so that the hot set
+ * can be loaded again before traffic finds the cache cold
+ */
+public class OrderCacheClearedEvent {
+}
@@ -0,0 +1,86 @@
+package com.example.orders.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Relays local {@link OrderChangeEvent}s to the other instances over Redis pub/sub and
+ * republishes the ones received from other instances as local events flagged as remote.
+ * Pub/sub does not keep messages for disconnected subscribers, so every (re)subscription is
+ * published as an {@link OrderChangesSubscribedEvent}.
+ */
+@Component
+@Slf4j
+public class OrderChangeBroadcaster implements MessageListener, SubscriptionListener {
+    
+    public static final String CHANNEL = "orders:changes";
+    
+    private static final char SEPARATOR = '|';
+    
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String instanceId = UUID.randomUUID().toString();
+    
+    public OrderChangeBroadcaster(StringRedisTemplate redisTemplate,
+                                  ObjectMapper objectMapper,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    /**
+     * Sent once the change is committed, keeping Redis I/O out of the transaction and rolled
+     * back writes off the channel
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChange(OrderChangeEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CHANNEL, instanceId + SEPARATOR + objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException | RuntimeException ex) {
+            log.warn("Failed to broadcast order change: {}", ex.getMessage());
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        byte[] body = message.getBody();
+        int payloadStart = instanceId.length() + 1;
+        if (body.length <= payloadStart || body[payloadStart - 1] != SEPARATOR) {
+            log.warn("Ignoring malformed order change message");
+            return;
+        }
+        if (new String(body, 0, payloadStart - 1, StandardCharsets.US_ASCII).equals(instanceId)) {
+            return;
+        }
+        try {
+            OrderChangeEvent event = objectMapper.readValue(body, payloadStart, body.length - payloadStart,
+                    OrderChangeEvent.class);
+            event.setRemote(true);
+            eventPublisher.publishEvent(event);
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable order change message: {}", ex.getMessage());
+        }
+    }
+    
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        eventPublisher.publishEvent(new OrderChangesSubscribedEvent());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.orders.event;
+
+import com.example.orders.dto.OrderResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Orders that were created, updated or deleted by a single write. Published locally by
+ * {@code OrderService} and relayed to every other instance by {@link OrderChangeBroadcaster},
+ * so in-memory views of the orders table can be kept in sync on all nodes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderChangeEvent {
+    
+    private List<OrderResponse> upserted;
+    private List<Long> deleted;
+    
+    /**
+     * True when the change was made on another instance and received over Redis
+     */
+    private boolean remote;
+    
+    public static OrderChangeEvent upserted(List<OrderResponse> orders) {
+        return new OrderChangeEvent(orders, List.of(), false);
+    }
+    
+    public static OrderChangeEvent upserted(OrderResponse order) {
+        return upserted(List.of(order));
+    }
+    
+    public static OrderChangeEvent deleted(Long id) {
+        return new OrderChangeEvent(List.of(), List.of(id), false);
+    }
+}
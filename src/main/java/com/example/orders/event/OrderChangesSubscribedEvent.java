@@ -0,0 +1,9 @@
+package com.example.orders.event;
+
+/**
+ * Published each time this instance subscribes to the order change channel, initially and after
+ * the connection to Redis was lost, so that views kept in sync by remote changes can catch up on
+ * the ones broadcast while it was not subscribed
+ */
+public class OrderChangesSubscribedEvent {
+}
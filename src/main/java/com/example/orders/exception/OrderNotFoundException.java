@@ -0,0 +1,14 @@
+package com.example.orders.exception;
+
+/**
+ * No order has the requested ID. Missing IDs are looked up often, e.g. by clients scanning ID
+ * ranges, so the exception records no stack trace and a 404 costs little more than the lookup.
+ */
+public class OrderNotFoundException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public OrderNotFoundException(Long id) {
+        super("Order not found with ID: " + id, null, false, false);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.orders.exception;
+
+/**
+ * A conditional write named a version of the order other than the current one
+ */
+public class OrderVersionMismatchException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public OrderVersionMismatchException(Long id, Long expectedVersion) {
+        super("Order with ID: " + id + " is no longer at version " + expectedVersion);
+    }
+}
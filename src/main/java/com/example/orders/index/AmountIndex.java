@@ -0,0 +1,349 @@
+package com.example.orders.index;
+
+import com.example.orders.dto.OrderResponse;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sorted index of order amounts held as primitive long cents.
+ * <p>
+ * Orders are kept in a treap ordered by (cents, id) whose nodes live in parallel primitive
+ * arrays and carry their subtree size and subtree sum. Counting, summing and rank lookups over
+ * an amount range therefore take O(log n), percentiles are a rank selection, and listing a page
+ * of k matching IDs takes O(log n + k), all without touching the database.
+ */
+@Component
+public class AmountIndex implements OrderIndex {
+
+    private static final int NIL = 0;
+
+    // Node 0 is the empty sentinel: size 0, sum 0
+    private long[] cents = new long[1024];
+    private long[] ids = new long[1024];
+    private long[] sums = new long[1024];
+    private int[] left = new int[1024];
+    private int[] right = new int[1024];
+    private int[] sizes = new int[1024];
+    private int[] priorities = new int[1024];
+    private int nextNode = 1;
+    private int[] freeNodes = new int[16];
+    private int freeCount;
+    private int root = NIL;
+
+    private final Map<Long, Long> centsById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    /**
+     * Count, sum, extremes and nearest-rank percentiles of the amounts in a range, in cents
+     */
+    public record RangeStats(long count, long sum, long min, long max, long[] percentiles) {
+    }
+
+    @Override
+    public void index(OrderResponse order) {
+        long amount = toCents(order.getAmount());
+        lock.writeLock().lock();
+        try {
+            Long previous = centsById.put(order.getId(), amount);
+            if (previous != null) {
+                if (previous == amount) {
+                    return;
+                }
+                delete(previous, order.getId());
+            }
+            insert(amount, order.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Long previous = centsById.remove(id);
+            if (previous != null) {
+                delete(previous, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            centsById.clear();
+            root = NIL;
+            nextNode = 1;
+            freeCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    public long count(long minCents, long maxCents) {
+        lock.readLock().lock();
+        try {
+            return countBelow(saturatedIncrement(maxCents)) - countBelow(minCents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of the orders with amounts in [minCents, maxCents] ordered by amount then ID,
+     * skipping the first {@code offset} matches
+     */
+    public long[] findIds(long minCents, long maxCents, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = countBelow(minCents) + offset;
+            int to = Math.min(countBelow(saturatedIncrement(maxCents)), from + limit);
+            if (from >= to) {
+                return new long[0];
+            }
+            long[] result = new long[to - from];
+            collect(root, from, to, 0, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Statistics of the amounts in [minCents, maxCents]; percentiles are requested as fractions in (0, 1]
+     */
+    public RangeStats stats(long minCents, long maxCents, double... percentiles) {
+        lock.readLock().lock();
+        try {
+            int from = countBelow(minCents);
+            int to = countBelow(saturatedIncrement(maxCents));
+            int count = to - from;
+            if (count <= 0) {
+                return new RangeStats(0, 0, 0, 0, new long[percentiles.length]);
+            }
+            long sum = sumBelow(saturatedIncrement(maxCents)) - sumBelow(minCents);
+            long[] values = new long[percentiles.length];
+            for (int i = 0; i < percentiles.length; i++) {
+                int rank = (int) Math.ceil(percentiles[i] * count) - 1;
+                values[i] = cents[select(from + Math.max(0, Math.min(rank, count - 1)))];
+            }
+            return new RangeStats(count, sum, cents[select(from)], cents[select(to - 1)], values);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static long toCentsCeiling(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.CEILING).unscaledValue().longValueExact();
+    }
+
+    public static long toCentsFloor(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private void insert(long amount, long id) {
+        int node = allocate(amount, id);
+        long parts = split(root, amount, id);
+        root = merge(merge(leftPart(parts), node), rightPart(parts));
+    }
+
+    private void delete(long amount, long id) {
+        long lower = split(root, amount, id);
+        long upper = id == Long.MAX_VALUE
+                ? split(rightPart(lower), saturatedIncrement(amount), Long.MIN_VALUE)
+                : split(rightPart(lower), amount, id + 1);
+        release(leftPart(upper));
+        root = merge(leftPart(lower), rightPart(upper));
+    }
+
+    /**
+     * Split a subtree into keys below (amount, id) and keys at or above it, packed into one long
+     */
+    private long split(int node, long amount, long id) {
+        if (node == NIL) {
+            return pack(NIL, NIL);
+        }
+        if (compare(cents[node], ids[node], amount, id) < 0) {
+            long parts = split(right[node], amount, id);
+            right[node] = leftPart(parts);
+            update(node);
+            return pack(node, rightPart(parts));
+        }
+        long parts = split(left[node], amount, id);
+        left[node] = rightPart(parts);
+        update(node);
+        return pack(leftPart(parts), node);
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priorities[a] > priorities[b]) {
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    private int countBelow(long amount) {
+        int count = 0;
+        int node = root;
+        while (node != NIL) {
+            if (cents[node] < amount) {
+                count += sizes[left[node]] + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return count;
+    }
+
+    private long sumBelow(long amount) {
+        long sum = 0;
+        int node = root;
+        while (node != NIL) {
+            if (cents[node] < amount) {
+                sum += sums[left[node]] + cents[node];
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return sum;
+    }
+
+    private int select(int rank) {
+        int node = root;
+        while (node != NIL) {
+            int leftSize = sizes[left[node]];
+            if (rank < leftSize) {
+                node = left[node];
+            } else if (rank == leftSize) {
+                return node;
+            } else {
+                rank -= leftSize + 1;
+                node = right[node];
+            }
+        }
+        throw new IllegalStateException("Rank out of range: " + rank);
+    }
+
+    /**
+     * In-order walk that only descends into subtrees overlapping the rank window [from, to)
+     */
+    private void collect(int node, int from, int to, int offset, long[] result) {
+        if (node == NIL || to <= offset || from >= offset + sizes[node]) {
+            return;
+        }
+        int nodeRank = offset + sizes[left[node]];
+        collect(left[node], from, to, offset, result);
+        if (nodeRank >= from && nodeRank < to) {
+            result[nodeRank - from] = ids[node];
+        }
+        collect(right[node], from, to, nodeRank + 1, result);
+    }
+
+    private void update(int node) {
+        sizes[node] = 1 + sizes[left[node]] + sizes[right[node]];
+        sums[node] = cents[node] + sums[left[node]] + sums[right[node]];
+    }
+
+    private int allocate(long amount, long id) {
+        int node;
+        if (freeCount > 0) {
+            node = freeNodes[--freeCount];
+        } else {
+            if (nextNode == cents.length) {
+                grow();
+            }
+            node = nextNode++;
+        }
+        cents[node] = amount;
+        ids[node] = id;
+        left[node] = NIL;
+        right[node] = NIL;
+        priorities[node] = ThreadLocalRandom.current().nextInt();
+        update(node);
+        return node;
+    }
+
+    private void release(int node) {
+        if (node == NIL) {
+            return;
+        }
+        if (freeCount == freeNodes.length) {
+            freeNodes = Arrays.copyOf(freeNodes, freeNodes.length * 2);
+        }
+        freeNodes[freeCount++] = node;
+    }
+
+    private void grow() {
+        int capacity = cents.length * 2;
+        cents = Arrays.copyOf(cents, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        sums = Arrays.copyOf(sums, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+    }
+
+    private static int compare(long amountA, long idA, long amountB, long idB) {
+        int byAmount = Long.compare(amountA, amountB);
+        return byAmount != 0 ? byAmount : Long.compare(idA, idB);
+    }
+
+    private static long saturatedIncrement(long value) {
+        return value == Long.MAX_VALUE ? value : value + 1;
+    }
+
+    private static long pack(int leftNode, int rightNode) {
+        return ((long) leftNode << 32) | (rightNode & 0xFFFFFFFFL);
+    }
+
+    private static int leftPart(long parts) {
+        return (int) (parts >>> 32);
+    }
+
+    private static int rightPart(long parts) {
+        return (int) parts;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.orders.index;
+
+import com.example.orders.dto.OrderResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Case-insensitive customer name index supporting prefix and substring lookups.
+ * <p>
+ * Distinct names are indexed rather than orders: a sorted map of names answers prefix
+ * queries, and a trigram inverted index over the names answers substring queries by
+ * intersecting the posting lists of the query's trigrams and verifying the survivors.
+ * Each name keeps the sorted IDs of its orders, so the cost of a query depends on the
+ * number of distinct matching names and the result limit, not on the size of the table.
+ */
+@Component
+public class CustomerNameIndex implements OrderIndex {
+
+    public enum MatchMode {
+        PREFIX,
+        SUBSTRING
+    }
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final NavigableMap<String, NameEntry> names = new TreeMap<>();
+    private final Map<String, Set<NameEntry>> trigrams = new HashMap<>();
+    private final Map<Long, NameEntry> nameByOrderId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    @Override
+    public void index(OrderResponse order) {
+        String name = normalize(order.getCustomerName());
+        lock.writeLock().lock();
+        try {
+            NameEntry current = nameByOrderId.get(order.getId());
+            if (current != null && current.name.equals(name)) {
+                return;
+            }
+            if (current != null) {
+                detach(order.getId(), current);
+            }
+            NameEntry entry = names.computeIfAbsent(name, this::createEntry);
+            entry.orderIds.add(order.getId());
+            nameByOrderId.put(order.getId(), entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            NameEntry current = nameByOrderId.get(id);
+            if (current != null) {
+                detach(id, current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            trigrams.clear();
+            nameByOrderId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * IDs of orders whose customer name matches the query, ordered by name and then by ID
+     */
+    public List<Long> search(String query, MatchMode mode, int limit) {
+        String normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+            for (NameEntry entry : matchingNames(normalized, mode)) {
+                entry.orderIds.forEach(id -> {
+                    ids.add(id);
+                    return ids.size() < limit;
+                });
+                if (ids.size() >= limit) {
+                    break;
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Iterable<NameEntry> matchingNames(String query, MatchMode mode) {
+        if (mode == MatchMode.PREFIX) {
+            return names.subMap(query, true, query + Character.MAX_VALUE, false).values();
+        }
+        if (query.length() < GRAM_LENGTH) {
+            // Too short to use trigrams; the distinct name set is small compared to the table
+            return names.values().stream()
+                    .filter(entry -> entry.name.contains(query))
+                    .toList();
+        }
+
+        Set<String> queryGrams = grams(query);
+        List<Set<NameEntry>> postings = new ArrayList<>(queryGrams.size());
+        for (String gram : queryGrams) {
+            Set<NameEntry> posting = trigrams.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        List<NameEntry> matches = new ArrayList<>();
+        for (NameEntry candidate : postings.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < postings.size() && inAll; i++) {
+                inAll = postings.get(i).contains(candidate);
+            }
+            // Sharing all trigrams does not guarantee they are adjacent in the right order
+            if (inAll && candidate.name.contains(query)) {
+                matches.add(candidate);
+            }
+        }
+        matches.sort(Comparator.comparing(entry -> entry.name));
+        return matches;
+    }
+
+    private NameEntry createEntry(String name) {
+        NameEntry entry = new NameEntry(name);
+        for (String gram : grams(name)) {
+            trigrams.computeIfAbsent(gram, key -> new HashSet<>()).add(entry);
+        }
+        return entry;
+    }
+
+    private void detach(Long id, NameEntry entry) {
+        entry.orderIds.remove(id);
+        nameByOrderId.remove(id);
+        if (!entry.orderIds.isEmpty()) {
+            return;
+        }
+        names.remove(entry.name);
+        for (String gram : grams(entry.name)) {
+            Set<NameEntry> posting = trigrams.get(gram);
+            if (posting != null) {
+                posting.remove(entry);
+                if (posting.isEmpty()) {
+                    trigrams.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class NameEntry {
+
+        private final String name;
+        private final SortedLongSet orderIds = new SortedLongSet();
+
+        private NameEntry(String name) {
+            this.name = name;
+        }
+    }
+}
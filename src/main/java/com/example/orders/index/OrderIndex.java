@@ -0,0 +1,27 @@
+package com.example.orders.index;
+
+import com.example.orders.dto.OrderResponse;
+
+/**
+ * In-memory secondary index over the orders table. Implementations are populated by
+ * {@link OrderIndexMaintainer} from a full scan at startup and then kept in sync
+ * incrementally from order change events.
+ */
+public interface OrderIndex {
+    
+    /**
+     * Add an order, replacing whatever was indexed for its ID before
+     */
+    void index(OrderResponse order);
+    
+    void remove(Long id);
+    
+    void clear();
+    
+    /**
+     * False until the initial full scan has completed; callers fall back to the database meanwhile
+     */
+    boolean isReady();
+    
+    void setReady(boolean ready);
+}
@@ -0,0 +1,152 @@
+package com.example.orders.index;
+
+import com.example.orders.datasource.DataSourceRouting;
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.event.OrderChangeEvent;
+import com.example.orders.event.OrderChangesSubscribedEvent;
+import com.example.orders.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds every {@link OrderIndex} from the database once the application is ready and
+ * applies order change events, local and remote, to them afterwards.
+ * <p>
+ * Remote changes arrive over pub/sub, in any order and not at all while this instance is not
+ * subscribed. The last version applied for each order is therefore kept, and changes older than it
+ * are dropped; deletes are final, since IDs are never reused. After every resubscription the indexes
+ * are rebuilt to take in the changes that were missed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderIndexMaintainer {
+    
+    // Version recorded for deleted orders, newer than any change to them
+    private static final long DELETED = Long.MAX_VALUE;
+    
+    private final List<OrderIndex> indexes;
+    private final OrderService orderService;
+    
+    // Changes that arrived during the running rebuild, null when none runs, and the last version
+    // applied per order ID; guarded by lock
+    private final Object lock = new Object();
+    private List<OrderChangeEvent> pendingChanges;
+    private final Map<Long, Long> appliedVersions = new HashMap<>();
+    
+    private final Object rebuildLock = new Object();
+    private volatile boolean started;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        started = true;
+        Thread thread = new Thread(this::rebuild, "order-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    @EventListener
+    public void onChangesSubscribed(OrderChangesSubscribedEvent event) {
+        // Before the application is ready the initial rebuild still covers every change
+        if (started) {
+            log.info("Subscribed to order changes again, rebuilding the order indexes to catch up");
+            rebuildInBackground();
+        }
+    }
+    
+    public void rebuild() {
+        // One at a time: a rebuild requested while another scans must scan again after it
+        synchronized (rebuildLock) {
+            doRebuild();
+        }
+    }
+    
+    private void doRebuild() {
+        log.info("Rebuilding {} in-memory order indexes", indexes.size());
+        long start = System.nanoTime();
+        synchronized (lock) {
+            pendingChanges = new ArrayList<>();
+            appliedVersions.clear();
+            indexes.forEach(index -> {
+                index.setReady(false);
+                index.clear();
+            });
+        }
+        try {
+            // From the primary, so that no committed order is missing while events are applied on top
+            DataSourceRouting.onPrimary(() -> orderService.streamAllOrders(order -> {
+                synchronized (lock) {
+                    appliedVersions.put(order.getId(), order.getVersion());
+                }
+                indexes.forEach(index -> index.index(order));
+            }));
+            synchronized (lock) {
+                // Changes committed during the scan replace the rows it read for them, unless older
+                pendingChanges.forEach(this::apply);
+                indexes.forEach(index -> index.setReady(true));
+            }
+            log.info("Order indexes rebuilt in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException ex) {
+            log.error("Failed to rebuild order indexes, searches will use the database", ex);
+        } finally {
+            synchronized (lock) {
+                pendingChanges = null;
+            }
+        }
+    }
+    
+    /**
+     * Applied once the change is committed, so a rolled back write never reaches the indexes;
+     * remote changes arrive outside any transaction and are applied immediately. While a rebuild
+     * scans the table, changes are held back and applied after the scan, so that a row read
+     * before the change cannot undo it.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChange(OrderChangeEvent event) {
+        synchronized (lock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+            } else {
+                apply(event);
+            }
+        }
+    }
+    
+    private void apply(OrderChangeEvent event) {
+        for (OrderResponse order : event.getUpserted()) {
+            if (supersedesApplied(order.getId(), order.getVersion())) {
+                indexes.forEach(index -> index.index(order));
+            }
+        }
+        for (Long id : event.getDeleted()) {
+            if (supersedesApplied(id, DELETED)) {
+                indexes.forEach(index -> index.remove(id));
+            }
+        }
+    }
+    
+    /**
+     * Records the version as applied unless the order is already at it or a later one; a change
+     * without a version always applies
+     */
+    private boolean supersedesApplied(Long id, Long version) {
+        if (version == null) {
+            return true;
+        }
+        Long applied = appliedVersions.get(id);
+        if (applied != null && applied >= version) {
+            return false;
+        }
+        appliedVersions.put(id, version);
+        return true;
+    }
+}
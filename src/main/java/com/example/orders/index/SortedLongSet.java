@@ -0,0 +1,67 @@
+package com.example.orders.index;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Compact set of primitive longs kept in ascending order in a single array. IDs are
+ * generated in increasing order, so inserts are almost always appends. Not thread-safe.
+ */
+class SortedLongSet {
+    
+    private long[] values = new long[4];
+    private int size;
+    
+    boolean add(long value) {
+        if (size > 0 && values[size - 1] < value) {
+            ensureCapacity();
+            values[size++] = value;
+            return true;
+        }
+        int position = Arrays.binarySearch(values, 0, size, value);
+        if (position >= 0) {
+            return false;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity();
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return true;
+    }
+    
+    boolean remove(long value) {
+        int position = Arrays.binarySearch(values, 0, size, value);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(values, position + 1, values, position, size - position - 1);
+        size--;
+        return true;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Visit values in ascending order until the visitor returns false
+     */
+    void forEach(LongPredicate visitor) {
+        for (int i = 0; i < size; i++) {
+            if (!visitor.test(values[i])) {
+                return;
+            }
+        }
+    }
+    
+    private void ensureCapacity() {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+    }
+}
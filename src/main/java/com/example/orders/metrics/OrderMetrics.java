@@ -0,0 +1,53 @@
+package com.example.orders.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers for the service-level paths that HTTP and repository metrics cannot tell apart,
+ * such as whether an order lookup was answered by the cache or by the database
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderMetrics {
+
+    public static final String SOURCE_CACHE = "cache";
+    public static final String SOURCE_DATABASE = "database";
+
+    private static final String LOOKUP_TIMER = "orders.lookup";
+    private static final String DATABASE_TIMER = "orders.db.query";
+
+    private final MeterRegistry meterRegistry;
+
+    public Timer.Sample startLookup() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Record a single-order lookup end to end, tagged with where it was answered from
+     */
+    public void recordLookup(Timer.Sample sample, String source, Throwable error) {
+        sample.stop(Timer.builder(LOOKUP_TIMER)
+                .description("Order lookups by ID, from the service's point of view")
+                .tag("source", source)
+                .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Time a database query issued by the service on a cache miss
+     */
+    public <T> T timeDatabaseQuery(String operation, Supplier<T> query) {
+        return Timer.builder(DATABASE_TIMER)
+                .description("Database queries issued by the order service on cache misses")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(query);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.orders.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of an aggregate query over order amounts
+ */
+public interface AmountAggregate {
+    
+    long getCount();
+    
+    BigDecimal getSum();
+    
+    BigDecimal getMin();
+    
+    BigDecimal getMax();
+}
@@ -0,0 +1,17 @@
+package com.example.orders.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Count, sum, extremes and nearest-rank percentiles of the order amounts in one group; the
+ * amounts are null when the group is empty
+ */
+public record AmountDistribution(String group,
+                                 long count,
+                                 BigDecimal sum,
+                                 BigDecimal min,
+                                 BigDecimal max,
+                                 BigDecimal p50,
+                                 BigDecimal p90,
+                                 BigDecimal p99) {
+}
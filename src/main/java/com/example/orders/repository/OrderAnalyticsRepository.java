@@ -0,0 +1,44 @@
+package com.example.orders.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Aggregates over order amounts computed by the database as SQL projections, so no order
+ * entity is ever loaded. Ranges are on the creation time, from inclusive and to exclusive,
+ * and either end may be left open with null.
+ */
+public interface OrderAnalyticsRepository {
+    
+    /**
+     * Width of the creation-time buckets of a timeline; weeks start on Monday
+     */
+    enum TimeBucket {
+        HOUR("HOUR"),
+        DAY("DAY"),
+        WEEK("ISO_WEEK"),
+        MONTH("MONTH");
+        
+        private final String sqlUnit;
+        
+        TimeBucket(String sqlUnit) {
+            this.sqlUnit = sqlUnit;
+        }
+        
+        String sqlUnit() {
+            return sqlUnit;
+        }
+    }
+    
+    AmountDistribution summarizeAmounts(LocalDateTime from, LocalDateTime to);
+    
+    /**
+     * One distribution per customer name, largest total amount first
+     */
+    List<AmountDistribution> summarizeAmountsByCustomer(LocalDateTime from, LocalDateTime to, int limit);
+    
+    /**
+     * One distribution per non-empty time bucket, oldest first, keyed by the bucket's start
+     */
+    List<AmountDistribution> summarizeAmountsByTime(TimeBucket bucket, LocalDateTime from, LocalDateTime to, int limit);
+}
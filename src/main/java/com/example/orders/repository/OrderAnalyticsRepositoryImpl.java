@@ -0,0 +1,104 @@
+package com.example.orders.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Native SQL because the time bucket has to be a literal of DATE_TRUNC and JPQL has no
+ * ordered-set aggregates for the percentiles
+ */
+@Transactional(readOnly = true)
+public class OrderAnalyticsRepositoryImpl implements OrderAnalyticsRepository {
+    
+    // Columns 1 to 7 of every query, after the group key in column 0
+    private static final String AGGREGATES = "count(*) as order_count, sum(amount) as amount_sum, "
+            + "min(amount) as amount_min, max(amount) as amount_max, "
+            + "percentile_disc(0.5) within group (order by amount) as p50, "
+            + "percentile_disc(0.9) within group (order by amount) as p90, "
+            + "percentile_disc(0.99) within group (order by amount) as p99";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public AmountDistribution summarizeAmounts(LocalDateTime from, LocalDateTime to) {
+        Query query = createQuery("select cast(null as varchar) as group_key, " + AGGREGATES + " from orders" + where(from, to), from, to);
+        return toDistribution((Tuple) query.getSingleResult());
+    }
+    
+    @Override
+    public List<AmountDistribution> summarizeAmountsByCustomer(LocalDateTime from, LocalDateTime to, int limit) {
+        Query query = createQuery("select customer_name as group_key, " + AGGREGATES + " from orders" + where(from, to)
+                + " group by customer_name order by amount_sum desc, customer_name", from, to);
+        return toDistributions(query.setMaxResults(limit).getResultList());
+    }
+    
+    @Override
+    public List<AmountDistribution> summarizeAmountsByTime(TimeBucket bucket, LocalDateTime from, LocalDateTime to,
+                                                           int limit) {
+        String bucketStart = "date_trunc('" + bucket.sqlUnit() + "', created_at)";
+        Query query = createQuery("select " + bucketStart + " as group_key, " + AGGREGATES + " from orders"
+                + where(from, to) + " group by " + bucketStart + " order by group_key", from, to);
+        return toDistributions(query.setMaxResults(limit).getResultList());
+    }
+    
+    private Query createQuery(String sql, LocalDateTime from, LocalDateTime to) {
+        Query query = entityManager.createNativeQuery(sql, Tuple.class);
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        return query;
+    }
+    
+    /**
+     * Only the bounds that are set become predicates, so bounded ranges can use the created_at index
+     */
+    private static String where(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null) {
+            return " where created_at >= :from and created_at < :to";
+        }
+        if (from != null) {
+            return " where created_at >= :from";
+        }
+        if (to != null) {
+            return " where created_at < :to";
+        }
+        return "";
+    }
+    
+    private static List<AmountDistribution> toDistributions(List<?> rows) {
+        List<AmountDistribution> distributions = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            distributions.add(toDistribution((Tuple) row));
+        }
+        return distributions;
+    }
+    
+    private static AmountDistribution toDistribution(Tuple row) {
+        Object group = row.get(0);
+        if (group instanceof Timestamp timestamp) {
+            group = timestamp.toLocalDateTime();
+        }
+        return new AmountDistribution(
+                group == null ? null : group.toString(),
+                ((Number) row.get(1)).longValue(),
+                (BigDecimal) row.get(2),
+                (BigDecimal) row.get(3),
+                (BigDecimal) row.get(4),
+                (BigDecimal) row.get(5),
+                (BigDecimal) row.get(6),
+                (BigDecimal) row.get(7));
+    }
+}
@@ -1,16 +1,62 @@
 package com.example.orders.repository;
 
 import com.example.orders.entity.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderAnalyticsRepository {
     
-    List<Order> findByCustomerNameContainingIgnoreCase(String customerName);
+    List<Order> findByCustomerNameContainingIgnoreCaseOrderByCustomerNameAscIdAsc(String customerName, Limit limit);
     
-    List<Order> findByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount);
+    List<Order> findByCustomerNameStartingWithIgnoreCaseOrderByCustomerNameAscIdAsc(String customerName, Limit limit);
+    
+    List<Order> findByAmountBetweenOrderByAmountAscIdAsc(BigDecimal minAmount, BigDecimal maxAmount, Pageable pageable);
+    
+    @Query("select count(o) as count, sum(o.amount) as sum, min(o.amount) as min, max(o.amount) as max " +
+            "from Order o where o.amount between :minAmount and :maxAmount")
+    AmountAggregate aggregateByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount);
+    
+    /**
+     * Keyset page: seeks past the cursor on the primary key index instead of skipping rows with OFFSET
+     */
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    
+    /**
+     * Keyset page of orders changed after the (updatedAt, id) cursor and strictly before {@code before},
+     * served by the (updated_at, id) index
+     */
+    @Query("select o from Order o " +
+            "where (o.updatedAt > :afterTime or (o.updatedAt = :afterTime and o.id > :afterId)) " +
+            "and o.updatedAt < :before " +
+            "order by o.updatedAt, o.id")
+    List<Order> findChangesAfter(LocalDateTime afterTime, Long afterId, LocalDateTime before, Limit limit);
+    
+    /**
+     * Forward-only cursor over every order; must be consumed inside a transaction and closed
+     */
+    @Query("select o from Order o order by o.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Order> streamAllOrderedById();
+    
+    /**
+     * IDs of the newest orders; IDs come from a sequence, so descending ID order follows creation time
+     * and is served by the primary key index
+     */
+    @Query("select o.id from Order o order by o.id desc")
+    List<Long> findRecentIds(Pageable pageable);
 }
@@ -0,0 +1,30 @@
+package com.example.orders.repository;
+
+import com.example.orders.entity.OrderTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderTombstoneRepository extends JpaRepository<OrderTombstone, Long> {
+    
+    /**
+     * Keyset page of deletes after the (deletedAt, orderId) cursor and strictly before {@code before}
+     */
+    @Query("select t from OrderTombstone t " +
+            "where (t.deletedAt > :afterTime or (t.deletedAt = :afterTime and t.orderId > :afterId)) " +
+            "and t.deletedAt < :before " +
+            "order by t.deletedAt, t.orderId")
+    List<OrderTombstone> findChangesAfter(LocalDateTime afterTime, Long afterId, LocalDateTime before, Limit limit);
+    
+    @Modifying
+    @Transactional
+    @Query("delete from OrderTombstone t where t.deletedAt < :cutoff")
+    int deleteByDeletedAtBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,290 @@
+package com.example.orders.repository;
+
+import com.example.orders.entity.Order;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Non-blocking access to the orders table over R2DBC, for the reactive stack. It uses plain SQL
+ * against the schema that Hibernate or Flyway created. The JPA repositories keep serving startup
+ * loading, index rebuilds and the other background work.
+ * <p>
+ * IDs are taken from {@code orders_seq} in blocks, the way Hibernate's pooled optimizer does, so
+ * orders inserted here never collide with those inserted through JPA.
+ */
+public class ReactiveOrderRepository {
+    
+    private static final String COLUMNS = "id, customer_name, amount, created_at, updated_at, version";
+    private static final String INSERT_SQL = "INSERT INTO orders (" + COLUMNS + ") VALUES ($1, $2, $3, $4, $5, $6)";
+    private static final String NEXT_ID_BLOCKS_SQL = "SELECT NEXT VALUE FOR orders_seq FROM SYSTEM_RANGE(1, :blocks)";
+    
+    /**
+     * Must match the allocation size of {@link Order#getId()}: every sequence value reserves the IDs up to and including it
+     */
+    private static final int ID_BLOCK_SIZE = 50;
+    
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    
+    // The unused rest of the last ID block, guarded by idLock
+    private final Object idLock = new Object();
+    private long nextId;
+    private long lastId = -1;
+    
+    public ReactiveOrderRepository(ConnectionFactory connectionFactory) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+    
+    /**
+     * Run the statements issued by the given publisher in one transaction
+     */
+    public <T> Mono<T> inTransaction(Mono<T> work) {
+        return transactionalOperator.transactional(work);
+    }
+    
+    public Mono<Order> findById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM orders WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveOrderRepository::toOrder)
+                .one();
+    }
+    
+    /**
+     * Orders with the given IDs in one IN query, in no particular order; missing IDs are skipped
+     */
+    public Flux<Order> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM orders WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveOrderRepository::toOrder)
+                .all();
+    }
+    
+    /**
+     * Every order in ID order, emitted as rows arrive rather than collected first
+     */
+    public Flux<Order> findAllOrderedById() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM orders ORDER BY id")
+                .map(ReactiveOrderRepository::toOrder)
+                .all();
+    }
+    
+    /**
+     * Keyset page: seeks past the cursor on the primary key index instead of skipping rows with OFFSET
+     */
+    public Flux<Order> findByIdGreaterThan(long afterId, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM orders WHERE id > :afterId ORDER BY id LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveOrderRepository::toOrder)
+                .all();
+    }
+    
+    public Flux<Order> findByCustomerName(String pattern, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM orders WHERE UPPER(customer_name) LIKE UPPER(:pattern) ESCAPE '\\' "
+                        + "ORDER BY customer_name, id LIMIT :limit")
+                .bind("pattern", pattern)
+                .bind("limit", limit)
+                .map(ReactiveOrderRepository::toOrder)
+                .all();
+    }
+    
+    public Flux<Order> findByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount, long offset, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM orders WHERE amount BETWEEN :minAmount AND :maxAmount "
+                        + "ORDER BY amount, id LIMIT :limit OFFSET :offset")
+                .bind("minAmount", minAmount)
+                .bind("maxAmount", maxAmount)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveOrderRepository::toOrder)
+                .all();
+    }
+    
+    public Mono<AmountAggregate> aggregateByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        return databaseClient.sql("SELECT COUNT(*) AS order_count, SUM(amount) AS amount_sum, MIN(amount) AS amount_min, "
+                        + "MAX(amount) AS amount_max FROM orders WHERE amount BETWEEN :minAmount AND :maxAmount")
+                .bind("minAmount", minAmount)
+                .bind("maxAmount", maxAmount)
+                .map(row -> (AmountAggregate) new Aggregate(row.get("order_count", Long.class),
+                        row.get("amount_sum", BigDecimal.class), row.get("amount_min", BigDecimal.class),
+                        row.get("amount_max", BigDecimal.class)))
+                .one();
+    }
+    
+    /**
+     * Insert new orders with one batched statement, assigning their IDs, timestamps and initial version
+     */
+    public Flux<Order> insertAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return Flux.empty();
+        }
+        return allocateIds(orders.size()).flatMapMany(ids -> {
+            LocalDateTime now = Order.now();
+            for (int i = 0; i < orders.size(); i++) {
+                Order order = orders.get(i);
+                order.setId(ids[i]);
+                order.setCreatedAt(now);
+                order.setUpdatedAt(now);
+                order.setVersion(0L);
+            }
+            return databaseClient.inConnectionMany(connection -> Flux.from(insertStatement(connection, orders).execute())
+                            .flatMap(result -> result.getRowsUpdated()))
+                    .thenMany(Flux.fromIterable(orders));
+        });
+    }
+    
+    /**
+     * Write the order's fields if the stored row is still at the order's version, then advance the
+     * version; fails with {@link OptimisticLockingFailureException} if another write came first
+     */
+    public Mono<Order> update(Order order) {
+        LocalDateTime now = Order.now();
+        return databaseClient.sql("UPDATE orders SET customer_name = :customerName, amount = :amount, "
+                        + "updated_at = :updatedAt, version = version + 1 WHERE id = :id AND version = :version")
+                .bind("customerName", order.getCustomerName())
+                .bind("amount", order.getAmount())
+                .bind("updatedAt", now)
+                .bind("id", order.getId())
+                .bind("version", order.getVersion())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> {
+                    if (rows == 0) {
+                        return Mono.error(new OptimisticLockingFailureException(
+                                "Order " + order.getId() + " was updated or deleted by another transaction"));
+                    }
+                    order.setUpdatedAt(now);
+                    order.setVersion(order.getVersion() + 1);
+                    return Mono.just(order);
+                });
+    }
+    
+    /**
+     * Delete the order if the stored row is still at the order's version and leave a tombstone for
+     * the change feed; fails with {@link OptimisticLockingFailureException} if another write came first
+     */
+    public Mono<Void> delete(Order order, LocalDateTime deletedAt) {
+        return databaseClient.sql("DELETE FROM orders WHERE id = :id AND version = :version")
+                .bind("id", order.getId())
+                .bind("version", order.getVersion())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows == 0
+                        ? Mono.error(new OptimisticLockingFailureException(
+                                "Order " + order.getId() + " was updated or deleted by another transaction"))
+                        : databaseClient.sql("INSERT INTO order_tombstones (order_id, deleted_at) VALUES (:id, :deletedAt)")
+                                .bind("id", order.getId())
+                                .bind("deletedAt", deletedAt)
+                                .then());
+    }
+    
+    private static Statement insertStatement(Connection connection, List<Order> orders) {
+        Statement statement = connection.createStatement(INSERT_SQL);
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (i > 0) {
+                statement.add();
+            }
+            statement.bind(0, order.getId())
+                    .bind(1, order.getCustomerName())
+                    .bind(2, order.getAmount())
+                    .bind(3, order.getCreatedAt())
+                    .bind(4, order.getUpdatedAt())
+                    .bind(5, order.getVersion());
+        }
+        return statement;
+    }
+    
+    /**
+     * IDs for {@code count} new orders: the rest of the current block first, then whole new blocks
+     * fetched from the sequence in one query. Blocks fetched by concurrent callers are distinct;
+     * only the last one's rest is kept, leaving gaps as Hibernate does on restarts.
+     */
+    private Mono<long[]> allocateIds(int count) {
+        long[] ids = new long[count];
+        int taken;
+        synchronized (idLock) {
+            taken = takeFromBlock(ids, 0);
+        }
+        if (taken == count) {
+            return Mono.just(ids);
+        }
+        int missing = count - taken;
+        return databaseClient.sql(NEXT_ID_BLOCKS_SQL)
+                .bind("blocks", missing / ID_BLOCK_SIZE + 2)
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .map(blockEnds -> {
+                    int n = taken;
+                    synchronized (idLock) {
+                        for (long end : blockEnds) {
+                            // The first value of a fresh sequence only marks the start; Hibernate also skips it
+                            if (end <= 1 || n == count) {
+                                continue;
+                            }
+                            nextId = end - ID_BLOCK_SIZE + 1;
+                            lastId = end;
+                            n = takeFromBlock(ids, n);
+                        }
+                    }
+                    return ids;
+                });
+    }
+    
+    private int takeFromBlock(long[] ids, int from) {
+        int n = from;
+        while (n < ids.length && nextId <= lastId) {
+            ids[n++] = nextId++;
+        }
+        return n;
+    }
+    
+    private static Order toOrder(Readable row) {
+        return new Order(row.get("id", Long.class),
+                row.get("customer_name", String.class),
+                row.get("amount", BigDecimal.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class),
+                row.get("version", Long.class));
+    }
+    
+    private record Aggregate(Long count, BigDecimal sum, BigDecimal min, BigDecimal max) implements AmountAggregate {
+    
+        @Override
+        public long getCount() {
+            return count == null ? 0 : count;
+        }
+    
+        @Override
+        public BigDecimal getSum() {
+            return sum;
+        }
+    
+        @Override
+        public BigDecimal getMin() {
+            return min;
+        }
+    
+        @Override
+        public BigDecimal getMax() {
+            return max;
+        }
+    }
+}
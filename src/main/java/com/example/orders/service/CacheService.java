@@ -1,36 +1,185 @@
 package com.example.orders.service;
 
+import com.example.orders.cache.TwoTierCache;
+import com.example.orders.cache.TwoTierCacheManager;
+import com.example.orders.config.OrderCacheProperties;
+import com.example.orders.dto.CacheLoadStats;
+import com.example.orders.dto.CacheStatsResponse;
+import com.example.orders.dto.CacheStatusResponse;
+import com.example.orders.dto.OrderJson;
 import com.example.orders.dto.OrderResponse;
+import com.example.orders.event.OrderCacheClearedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CacheService {
     
-    private static final String ORDER_CACHE_NAME = "orders";
+    public static final String ORDER_CACHE_NAME = "orders";
+    
+    private final TwoTierCacheManager cacheManager;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final OrderCacheProperties cacheProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CircuitBreaker redisCircuitBreaker;
+    private final ObjectMapper objectMapper;
     
     /**
-     * Cache an order response with the order ID as the key
+     * Cache an order response with the order ID as the key, rendered to the JSON the API returns for it
      */
-    @CachePut(value = ORDER_CACHE_NAME, key = "#orderResponse.id")
-    public OrderResponse cacheOrder(OrderResponse orderResponse) {
+    public void cacheOrder(OrderResponse orderResponse) {
         log.debug("Caching order with ID: {}", orderResponse.getId());
-        return orderResponse;
+        orderCache().put(orderResponse.getId(), render(orderResponse));
+    }
+    
+    /**
+     * Cache many freshly created orders in Redis with a single pipelined round-trip, returning
+     * false if Redis failed. New IDs cannot be held by any local tier, so no invalidation
+     * broadcast is needed.
+     */
+    public boolean cacheOrders(List<OrderResponse> orderResponses) {
+        return pipelineOrders(renderAll(orderResponses), false);
+    }
+    
+    /**
+     * Like {@link #cacheOrders}, but keeps entries already in Redis, which a concurrent update
+     * may have written after the given orders were read from the database, and skips orders
+     * updated or deleted since their write generations were read (see {@link #getWriteGenerations})
+     */
+    public boolean cacheOrdersIfAbsent(List<OrderResponse> orderResponses, Map<Long, Long> generations) {
+        List<OrderJson> rendered = renderAll(orderResponses);
+        Set<Long> written = new HashSet<>(orderCache().getKeysWrittenSince(
+                rendered.stream().map(OrderJson::getId).toList(), generations));
+        List<OrderJson> unwritten = rendered.stream()
+                .filter(order -> !written.contains(order.getId()))
+                .toList();
+        boolean cached = pipelineOrders(unwritten, true);
+        evictWrittenSince(unwritten, generations);
+        return cached;
+    }
+    
+    /**
+     * Write generations of the given orders in the cache, to read before loading them from the
+     * database for a bulk cache write; an update or delete of an order changes its generation
+     */
+    public Map<Long, Long> getWriteGenerations(List<Long> ids) {
+        return orderCache().getWriteGenerations(ids);
+    }
+    
+    /**
+     * Retrieve an order from cache by ID, checking the local tier before Redis; null on a miss
+     */
+    public OrderJson getCachedOrder(Long id) {
+        Cache.ValueWrapper cached = orderCache().get(id);
+        return cached == null ? null : toOrderJson(cached.get());
+    }
+    
+    /**
+     * Look up many orders at once: the local tier first, then a single Redis MGET for the rest.
+     * Returns the cached orders by ID; IDs that are absent, possibly stale in Redis, or unreadable
+     * because Redis failed or is bypassed, are left out for the caller to load.
+     */
+    public Map<Long, OrderJson> getCachedOrders(List<Long> ids) {
+        TwoTierCache cache = orderCache();
+        Map<Long, OrderJson> found = new HashMap<>();
+        cache.getAllPresentLocal(ids).forEach((key, value) -> found.put((Long) key, toOrderJson(value)));
+        
+        List<Long> remaining = ids.stream()
+                .filter(id -> !found.containsKey(id) && cache.isRedisEntryTrusted(id))
+                .toList();
+        if (remaining.isEmpty()) {
+            return found;
+        }
+        try {
+            List<Object> values = redisCircuitBreaker.executeSupplier(() -> redisTemplate.opsForValue()
+                    .multiGet(remaining.stream().map(CacheService::orderKey).toList()));
+            Map<Long, OrderJson> fromRedis = new HashMap<>();
+            for (int i = 0; values != null && i < remaining.size(); i++) {
+                if (values.get(i) instanceof OrderJson || values.get(i) instanceof OrderResponse) {
+                    fromRedis.put(remaining.get(i), toOrderJson(values.get(i)));
+                }
+            }
+            cache.acceptRedisValues(fromRedis, remaining.size());
+            found.putAll(fromRedis);
+        } catch (CallNotPermittedException ex) {
+            log.debug("Redis circuit breaker open, loading {} orders without it", remaining.size());
+        } catch (RuntimeException ex) {
+            cache.recordRedisError();
+            log.warn("Bulk cache read of {} orders failed: {}", remaining.size(), ex.getMessage());
+        }
+        return found;
+    }
+    
+    /**
+     * Cache orders that a bulk read loaded from the database: locally, and in Redis with one
+     * pipelined write that keeps entries a concurrent update may have written meanwhile. Orders
+     * updated or deleted since the given write generations were read are not cached, and are
+     * evicted again if that happened while they were being cached. Returns the orders as read,
+     * in the given order.
+     */
+    public List<OrderJson> backfillOrders(List<OrderResponse> orderResponses, Map<Long, Long> generations) {
+        if (orderResponses.isEmpty()) {
+            return List.of();
+        }
+        List<OrderJson> rendered = renderAll(orderResponses);
+        Map<Long, OrderJson> byId = new HashMap<>();
+        rendered.forEach(order -> byId.put(order.getId(), order));
+        List<OrderJson> kept = new ArrayList<>(orderCache().putAllLocal(byId, generations).values());
+        pipelineOrders(kept, true);
+        evictWrittenSince(kept, generations);
+        return rendered;
     }
     
     /**
-     * Retrieve an order from cache by ID
+     * Retrieve an order from cache, or load it with the given loader on a miss. Concurrent misses
+     * for the same ID share one load, and frequently read orders are reloaded ahead of expiry.
+     * Loaded orders are rendered to JSON once, before they are cached. Returns null, caching
+     * nothing, when the loader returns null.
      */
-    @Cacheable(value = ORDER_CACHE_NAME, key = "#id")
-    public OrderResponse getCachedOrder(Long id) {
-        log.debug("Order with ID: {} not found in cache", id);
-        return null; // This will only be called if the cache miss occurs
+    public OrderJson getOrLoadOrder(Long id, Callable<OrderResponse> loader) {
+        Cache cache = cacheManager.getCache(ORDER_CACHE_NAME);
+        try {
+            return toOrderJson(cache.get(id, () -> {
+                OrderResponse order = loader.call();
+                return order == null ? null : render(order);
+            }));
+        } catch (Cache.ValueRetrievalException ex) {
+            // Surface the loader's own exception, e.g. order not found
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
     }
     
     /**
@@ -42,10 +191,186 @@ public class CacheService {
     }
     
     /**
-     * Evict all orders from cache
+     * Evict all orders from cache, then let the warm-up reload the hot set
      */
-    @CacheEvict(value = ORDER_CACHE_NAME, allEntries = true)
+    @CacheEvict(value = ORDER_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public void evictAllOrders() {
-        log.debug("Evicting all orders from cache");
+        log.debug("Evicted all orders from cache");
+        eventPublisher.publishEvent(new OrderCacheClearedEvent());
+    }
+    
+    /**
+     * Count a sample of order reads in the shared hot set used by the cache warm-up
+     */
+    public void recordAccess(Long id) {
+        OrderCacheProperties.Warmup warmup = cacheProperties.getWarmup();
+        if (ThreadLocalRandom.current().nextDouble() >= warmup.getAccessSampleRate()) {
+            return;
+        }
+        try {
+            redisCircuitBreaker.executeSupplier(() ->
+                    stringRedisTemplate.opsForZSet().incrementScore(warmup.getHotSetKey(), id.toString(), 1));
+        } catch (CallNotPermittedException | DataAccessException ex) {
+            log.debug("Failed to record access to order {}: {}", id, ex.getMessage());
+        }
+    }
+    
+    /**
+     * The most frequently read order IDs, most popular first; the hot set is trimmed to that size
+     */
+    public List<Long> getHotOrderIds(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        String key = cacheProperties.getWarmup().getHotSetKey();
+        Set<String> members = redisCircuitBreaker.executeSupplier(() -> {
+            Set<String> top = stringRedisTemplate.opsForZSet().reverseRange(key, 0, limit - 1);
+            stringRedisTemplate.opsForZSet().removeRange(key, 0, -limit - 1);
+            return top;
+        });
+        return members == null ? List.of() : members.stream().map(Long::valueOf).toList();
+    }
+    
+    /**
+     * Hit/miss/eviction counters of every cache per tier, and its load counters
+     */
+    public Map<String, CacheStatsResponse> getStatistics() {
+        return cacheManager.getStatistics();
+    }
+    
+    /**
+     * The order as the JSON bytes the API returns for it, rendered with the HTTP ObjectMapper
+     */
+    public OrderJson render(OrderResponse orderResponse) {
+        return OrderJson.render(objectMapper, orderResponse);
+    }
+    
+    private List<OrderJson> renderAll(List<OrderResponse> orderResponses) {
+        List<OrderJson> rendered = new ArrayList<>(orderResponses.size());
+        orderResponses.forEach(order -> rendered.add(render(order)));
+        return rendered;
+    }
+    
+    /**
+     * Orders are cached as {@link OrderJson}; those that earlier releases cached as {@link OrderResponse}
+     * are rendered on every read until they expire
+     */
+    private OrderJson toOrderJson(Object cached) {
+        return cached instanceof OrderResponse order ? render(order) : (OrderJson) cached;
+    }
+    
+    /**
+     * Evict cached orders whose update or delete raced with caching them, so that the value cached
+     * last is not one read before that write
+     */
+    private void evictWrittenSince(List<OrderJson> cached, Map<Long, Long> generations) {
+        TwoTierCache cache = orderCache();
+        List<Long> ids = cached.stream().map(OrderJson::getId).toList();
+        cache.getKeysWrittenSince(ids, generations).forEach(cache::evict);
+    }
+    
+    private TwoTierCache orderCache() {
+        return (TwoTierCache) cacheManager.getCache(ORDER_CACHE_NAME);
+    }
+    
+    private boolean pipelineOrders(List<OrderJson> orders, boolean onlyIfAbsent) {
+        if (orders.isEmpty()) {
+            return true;
+        }
+        log.debug("Caching {} orders in one pipeline", orders.size());
+        Duration ttl = cacheProperties.getRedis().getTtl();
+        try {
+            redisCircuitBreaker.executeSupplier(() -> redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (OrderJson order : orders) {
+                        if (onlyIfAbsent) {
+                            ops.opsForValue().setIfAbsent(orderKey(order.getId()), order, ttl);
+                        } else {
+                            ops.opsForValue().set(orderKey(order.getId()), order, ttl);
+                        }
+                    }
+                    return null;
+                }
+            }));
+            return true;
+        } catch (CallNotPermittedException ex) {
+            log.debug("Redis circuit breaker open, not caching batch of {} orders", orders.size());
+            return false;
+        } catch (DataAccessException ex) {
+            // The orders are committed; the cache will be filled lazily on first read
+            log.warn("Failed to cache batch of {} orders: {}", orders.size(), ex.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Local and Redis size, hit ratio and load latency of every cache, plus key count and memory use
+     * of the whole Redis server
+     */
+    public CacheStatusResponse getStatus() {
+        Map<String, CacheStatusResponse.CacheSummary> caches = new LinkedHashMap<>();
+        cacheManager.getCaches().forEach((name, cache) -> {
+            long localHits = cache.getLocalStatistics().getHits();
+            long requests = localHits + cache.getLocalStatistics().getMisses();
+            long hits = localHits + cache.getRedisStatistics().getHits();
+            CacheLoadStats loads = cache.getLoadStatistics().snapshot();
+            caches.put(name, CacheStatusResponse.CacheSummary.builder()
+                    .localEntries(cache.getLocalSize())
+                    .requests(requests)
+                    .hitRatio(requests == 0 ? 0.0 : (double) hits / requests)
+                    .localHitRatio(requests == 0 ? 0.0 : (double) localHits / requests)
+                    .redisErrors(cache.getRedisStatistics().getErrors())
+                    .loads(loads.getLoads())
+                    .averageLoadMillis(loads.getAverageLoadMillis())
+                    .maxLoadMillis(loads.getMaxLoadMillis())
+                    .build());
+        });
+        
+        CacheStatusResponse.CacheStatusResponseBuilder status = CacheStatusResponse.builder().caches(caches);
+        try {
+            Properties memory = redisCircuitBreaker.executeSupplier(() -> redisTemplate.execute(
+                    (RedisCallback<Properties>) connection -> connection.serverCommands().info("memory")));
+            Long keys = redisCircuitBreaker.executeSupplier(() -> redisTemplate.execute(
+                    (RedisCallback<Long>) connection -> connection.serverCommands().dbSize()));
+            String usedMemory = memory == null ? null : memory.getProperty("used_memory");
+            status.redisAvailable(true)
+                    .redisServerKeys(keys)
+                    .redisServerUsedMemoryBytes(usedMemory == null ? null : Long.valueOf(usedMemory));
+            for (Map.Entry<String, CacheStatusResponse.CacheSummary> cache : caches.entrySet()) {
+                cache.getValue().setRedisEntries(redisCircuitBreaker.executeSupplier(() -> countRedisEntries(cache.getKey())));
+            }
+        } catch (CallNotPermittedException | DataAccessException ex) {
+            log.debug("Redis status unavailable: {}", ex.getMessage());
+            status.redisAvailable(false);
+        }
+        return status.build();
+    }
+    
+    /**
+     * Keys of one cache in Redis, found with SCAN so that Redis keeps serving other clients in between.
+     * Takes time in proportion to the whole keyspace, which is fine for a management endpoint.
+     */
+    private Long countRedisEntries(String cacheName) {
+        ScanOptions options = ScanOptions.scanOptions().match(cacheName + "::*").count(1000).build();
+        return redisTemplate.execute((RedisCallback<Long>) connection -> {
+            long count = 0;
+            try (Cursor<byte[]> keys = connection.keyCommands().scan(options)) {
+                while (keys.hasNext()) {
+                    keys.next();
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+    
+    /**
+     * Redis key under which the cache manager stores an order
+     */
+    static String orderKey(Long id) {
+        return ORDER_CACHE_NAME + "::" + id;
     }
 }
@@ -0,0 +1,87 @@
+package com.example.orders.service;
+
+import com.example.orders.config.OrderCacheProperties;
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.event.OrderChangeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Remembers for a short while the order IDs the database did not have, so that repeated lookups
+ * of missing IDs are answered without a query. Creating an order drops its ID here once the
+ * creation is committed, on this instance or, through the change broadcast, on any other.
+ * <p>
+ * A lookup that missed the database may record the ID only after the order was created and the
+ * entry dropped. To avoid that, every lookup takes a token before querying, and recording the miss
+ * is skipped if an order whose ID falls in the same stripe was written meanwhile.
+ */
+@Component
+@Slf4j
+public class MissingOrderCache {
+    
+    private static final int STRIPES = 64;
+    
+    private final boolean enabled;
+    private final Cache<Long, Boolean> missingIds;
+    private final AtomicLongArray upserts = new AtomicLongArray(STRIPES);
+    
+    public MissingOrderCache(OrderCacheProperties properties, MeterRegistry meterRegistry) {
+        OrderCacheProperties.Negative negative = properties.getNegative();
+        this.enabled = negative.isEnabled();
+        this.missingIds = Caffeine.newBuilder()
+                .maximumSize(negative.getMaxEntries())
+                .expireAfterWrite(negative.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, missingIds, "orders-missing");
+    }
+    
+    /**
+     * True if a recent lookup found no order with this ID
+     */
+    public boolean isMissing(Long id) {
+        return enabled && missingIds.getIfPresent(id) != null;
+    }
+    
+    /**
+     * Token to pass to {@link #markMissing}, taken before the database is queried for the ID
+     */
+    public long lookupStarted(Long id) {
+        return upserts.get(stripe(id));
+    }
+    
+    /**
+     * Remember that the database has no order with this ID, unless one may have been written since the token was taken
+     */
+    public void markMissing(Long id, long token) {
+        if (enabled && upserts.get(stripe(id)) == token) {
+            missingIds.put(id, Boolean.TRUE);
+        }
+    }
+    
+    /**
+     * Applied once the change is committed; remote changes arrive outside any transaction and are applied immediately.
+     * Deleted IDs are never reused, so they are remembered as missing straight away.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChange(OrderChangeEvent event) {
+        for (OrderResponse order : event.getUpserted()) {
+            upserts.incrementAndGet(stripe(order.getId()));
+            missingIds.invalidate(order.getId());
+        }
+        if (enabled) {
+            event.getDeleted().forEach(id -> missingIds.put(id, Boolean.TRUE));
+        }
+    }
+    
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (STRIPES - 1);
+    }
+}
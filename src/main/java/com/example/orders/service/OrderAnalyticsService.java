@@ -0,0 +1,123 @@
+package com.example.orders.service;
+
+import com.example.orders.config.AnalyticsProperties;
+import com.example.orders.dto.OrderAnalyticsResponse;
+import com.example.orders.dto.OrderGroupStats;
+import com.example.orders.metrics.OrderMetrics;
+import com.example.orders.repository.AmountDistribution;
+import com.example.orders.repository.OrderAnalyticsRepository.TimeBucket;
+import com.example.orders.repository.OrderRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Amount aggregates for dashboards, computed by the database and reused for a short time.
+ * Identical queries arriving while a result is cached, or while it is being computed, share
+ * that one result instead of each scanning the table.
+ */
+@Service
+@Slf4j
+public class OrderAnalyticsService {
+    
+    public static final int MAX_GROUPS = 1000;
+    
+    private final OrderRepository orderRepository;
+    private final OrderMetrics orderMetrics;
+    private final Cache<AnalyticsQuery, OrderAnalyticsResponse> results;
+    
+    /**
+     * Everything a result depends on, used as its cache key
+     */
+    private record AnalyticsQuery(String groupBy, LocalDateTime from, LocalDateTime to, int limit) {
+    }
+    
+    public OrderAnalyticsService(OrderRepository orderRepository,
+                                 OrderMetrics orderMetrics,
+                                 AnalyticsProperties properties) {
+        this.orderRepository = orderRepository;
+        this.orderMetrics = orderMetrics;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxCachedResults())
+                .expireAfterWrite(properties.getResultTtl())
+                .build();
+    }
+    
+    public OrderAnalyticsResponse getSummary(LocalDateTime from, LocalDateTime to) {
+        validateRange(from, to);
+        return cached(new AnalyticsQuery("none", from, to, 1), () -> List.of(
+                orderMetrics.timeDatabaseQuery("summarizeAmounts", () -> orderRepository.summarizeAmounts(from, to))));
+    }
+    
+    public OrderAnalyticsResponse getByCustomer(LocalDateTime from, LocalDateTime to, int limit) {
+        validateRange(from, to);
+        if (limit < 1 || limit > MAX_GROUPS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_GROUPS);
+        }
+        return cached(new AnalyticsQuery("customer", from, to, limit), () ->
+                orderMetrics.timeDatabaseQuery("summarizeAmountsByCustomer",
+                        () -> orderRepository.summarizeAmountsByCustomer(from, to, limit)));
+    }
+    
+    public OrderAnalyticsResponse getTimeline(TimeBucket bucket, LocalDateTime from, LocalDateTime to) {
+        validateRange(from, to);
+        if (bucket == null) {
+            throw new IllegalArgumentException("bucket must be one of HOUR, DAY, WEEK or MONTH");
+        }
+        String groupBy = bucket.name().toLowerCase(Locale.ROOT);
+        return cached(new AnalyticsQuery(groupBy, from, to, MAX_GROUPS), () -> {
+            // One extra row tells a range with too many buckets apart from one that just fits
+            List<AmountDistribution> buckets = orderMetrics.timeDatabaseQuery("summarizeAmountsByTime",
+                    () -> orderRepository.summarizeAmountsByTime(bucket, from, to, MAX_GROUPS + 1));
+            if (buckets.size() > MAX_GROUPS) {
+                throw new IllegalArgumentException("The range spans more than " + MAX_GROUPS + " " + groupBy
+                        + " buckets; narrow it or use a wider bucket");
+            }
+            return buckets;
+        });
+    }
+    
+    private OrderAnalyticsResponse cached(AnalyticsQuery query, Supplier<List<AmountDistribution>> compute) {
+        return results.get(query, key -> {
+            log.debug("Computing order analytics for {}", key);
+            return OrderAnalyticsResponse.builder()
+                    .groupBy(key.groupBy())
+                    .from(key.from())
+                    .to(key.to())
+                    .generatedAt(LocalDateTime.now())
+                    .groups(compute.get().stream().map(OrderAnalyticsService::toStats).toList())
+                    .build();
+        });
+    }
+    
+    private static void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+    }
+    
+    private static OrderGroupStats toStats(AmountDistribution distribution) {
+        long count = distribution.count();
+        return OrderGroupStats.builder()
+                .group(distribution.group())
+                .count(count)
+                .sum(distribution.sum() != null ? distribution.sum() : BigDecimal.ZERO)
+                .average(count > 0
+                        ? distribution.sum().divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP)
+                        : null)
+                .min(distribution.min())
+                .max(distribution.max())
+                .p50(distribution.p50())
+                .p90(distribution.p90())
+                .p99(distribution.p99())
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.OrderResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Defers the cache writes of order changes until the transaction that made them has committed.
+ * <p>
+ * Writing the cache inside the transaction let a concurrent read load the pre-commit row back
+ * into it after the write, and left the cache ahead of the database when the transaction rolled
+ * back; it also held the transaction open across Redis round-trips. Changes are instead collected
+ * per transaction and coalesced per order ID, so only the final state of each order is written.
+ * After commit, new orders go to Redis in one pipeline and updated or deleted orders go through
+ * the two-tier cache so that other instances drop their local copies. After a rollback nothing is
+ * written. Outside a transaction changes are applied immediately.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderCacheDispatcher {
+    
+    private final CacheService cacheService;
+    
+    /**
+     * Final cache change of one order in a transaction; a null order means evict
+     */
+    private record Change(OrderResponse order, boolean created) {
+    }
+    
+    public void created(List<OrderResponse> orders) {
+        orders.forEach(order -> record(order.getId(), new Change(order, true)));
+    }
+    
+    public void updated(OrderResponse order) {
+        record(order.getId(), new Change(order, false));
+    }
+    
+    public void deleted(Long id) {
+        record(id, new Change(null, false));
+    }
+    
+    private void record(Long id, Change change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Map.of(id, change));
+            return;
+        }
+        pendingChanges().merge(id, change, (previous, next) ->
+                // An order created in this transaction is still unknown to every other instance
+                new Change(next.order(), previous.created() && next.order() != null));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<Long, Change> pendingChanges() {
+        Map<Long, Change> pending = (Map<Long, Change>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Map<Long, Change> changes = new LinkedHashMap<>();
+        TransactionSynchronizationManager.bindResource(this, changes);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(changes);
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(OrderCacheDispatcher.this);
+                if (status != STATUS_COMMITTED && !changes.isEmpty()) {
+                    log.debug("Discarded cache changes of {} orders after rollback", changes.size());
+                }
+            }
+        });
+        return changes;
+    }
+    
+    private void apply(Map<Long, Change> changes) {
+        List<OrderResponse> created = new ArrayList<>();
+        changes.forEach((id, change) -> {
+            if (change.order() == null) {
+                cacheService.evictOrder(id);
+            } else if (change.created()) {
+                created.add(change.order());
+            } else {
+                cacheService.cacheOrder(change.order());
+            }
+        });
+        if (created.size() == 1) {
+            cacheService.cacheOrder(created.get(0));
+        } else {
+            cacheService.cacheOrders(created);
+        }
+    }
+}
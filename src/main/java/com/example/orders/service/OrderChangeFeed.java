@@ -0,0 +1,427 @@
+package com.example.orders.service;
+
+import com.example.orders.config.ChangeFeedProperties;
+import com.example.orders.datasource.DataSourceRouting;
+import com.example.orders.dto.OrderChange;
+import com.example.orders.dto.OrderChangesResponse;
+import com.example.orders.entity.Order;
+import com.example.orders.entity.OrderTombstone;
+import com.example.orders.event.OrderChangeEvent;
+import com.example.orders.repository.OrderRepository;
+import com.example.orders.repository.OrderTombstoneRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Incremental feed of order changes in (change time, order ID) order, read from a cursor.
+ * <p>
+ * Upserts come from the orders table through its (updated_at, id) index and deletes from the
+ * tombstones written by {@link OrderService#deleteOrder}, so a consumer reads only what changed
+ * since its cursor and never the whole table.
+ * <p>
+ * Change times are stamped before commit, so a transaction can commit a row older than rows
+ * already handed out, and a cursor that had moved past that time would skip it for good. Write
+ * transactions therefore register their start through {@link #beginWrite()}, or {@link #openWrite()}
+ * for writes outside a Spring-managed transaction such as those of the reactive stack, and pages only
+ * cover changes older than the oldest write still open, the watermark. The watermark is tracked
+ * per instance and misses the writes still open on other instances, so pages also hold back changes
+ * younger than the commit lag, which no write transaction may outlast.
+ * <p>
+ * Long-poll and event stream consumers are woken when a write completes here or a change is
+ * received from another instance, and again once the commit lag has passed; each then reads on
+ * from its own cursor.
+ */
+@Service
+@Slf4j
+public class OrderChangeFeed implements DisposableBean {
+    
+    public static final int MAX_PAGE_SIZE = 1000;
+    
+    private final OrderRepository orderRepository;
+    private final OrderTombstoneRepository tombstoneRepository;
+    private final ChangeFeedProperties properties;
+    
+    // Start times of the write transactions still open, with how many started at each
+    private final NavigableMap<LocalDateTime, Integer> openWrites = new TreeMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    // Whether a wake-up for changes coming out of the commit lag is scheduled, and when the last change was signalled
+    private final AtomicBoolean lagWakeScheduled = new AtomicBoolean();
+    private volatile long lastSignalNanos;
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Position after the change with this time and order ID, encoded as {@code <epoch micros>-<id>}
+     */
+    public record Cursor(LocalDateTime changedAt, long id) {
+        
+        public static final Cursor BEGINNING = new Cursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+        
+        public static Cursor of(OrderChange change) {
+            return new Cursor(change.getChangedAt(), change.getId());
+        }
+        
+        public static Cursor parse(String value) {
+            int separator = value.indexOf('-');
+            try {
+                long micros = Long.parseLong(value.substring(0, separator));
+                long id = Long.parseLong(value.substring(separator + 1));
+                return new Cursor(LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                        Math.floorMod(micros, 1_000_000) * 1000, ZoneOffset.UTC), id);
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Malformed change feed cursor: " + value);
+            }
+        }
+        
+        @Override
+        public String toString() {
+            long micros = changedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + changedAt.getNano() / 1000;
+            return micros + "-" + id;
+        }
+    }
+    
+    /**
+     * Receives the pages of a subscription, one at a time and in order
+     */
+    @FunctionalInterface
+    public interface Listener {
+        
+        void onChanges(OrderChangesResponse page) throws IOException;
+        
+        default void onHeartbeat() throws IOException {
+        }
+        
+        default void onError(Exception ex) {
+        }
+    }
+    
+    public OrderChangeFeed(OrderRepository orderRepository,
+                           OrderTombstoneRepository tombstoneRepository,
+                           ChangeFeedProperties properties) {
+        this.orderRepository = orderRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.properties = properties;
+        long heartbeatMillis = properties.getHeartbeatInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        long pruneMillis = properties.getPruneInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::pruneTombstones, pruneMillis, pruneMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Holds the watermark at the current time until the surrounding transaction completes; must be
+     * called by every transaction that changes orders, before it stamps any of them
+     */
+    public void beginWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        OpenWrite write = openWrite();
+        TransactionSynchronizationManager.bindResource(this, write);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(OrderChangeFeed.this);
+                write.close();
+            }
+        });
+    }
+    
+    /**
+     * Holds the watermark at the current time until the returned write is closed, for writes that
+     * Spring manages no transaction for. Must be opened before the write stamps any order and
+     * closed once it has committed or rolled back.
+     */
+    public OpenWrite openWrite() {
+        LocalDateTime startedAt;
+        synchronized (openWrites) {
+            startedAt = Order.now();
+            openWrites.merge(startedAt, 1, Integer::sum);
+        }
+        return new OpenWrite(startedAt);
+    }
+    
+    /**
+     * One page of changes after the cursor; a missing cursor starts from the beginning
+     */
+    public OrderChangesResponse getChanges(String after, int limit) {
+        validateLimit(limit);
+        return read(parseCursor(after), limit);
+    }
+    
+    /**
+     * Like {@link #getChanges}, but when there are no changes yet waits up to {@code wait} for some
+     * before completing with an empty page
+     */
+    public CompletableFuture<OrderChangesResponse> poll(String after, int limit, Duration wait) {
+        validateLimit(limit);
+        if (wait.isNegative() || wait.compareTo(properties.getMaxWait()) > 0) {
+            throw new IllegalArgumentException("wait must be between 0s and " + properties.getMaxWait().toSeconds() + "s");
+        }
+        Cursor cursor = parseCursor(after);
+        OrderChangesResponse page = read(cursor, limit);
+        if (!page.getChanges().isEmpty() || wait.isZero()) {
+            return CompletableFuture.completedFuture(page);
+        }
+        
+        CompletableFuture<OrderChangesResponse> result = new CompletableFuture<>();
+        // Re-reads once right away, catching changes completed since the read above
+        Subscription subscription = new Subscription(cursor, limit, result::complete);
+        result.whenComplete((changes, ex) -> subscription.close());
+        result.completeOnTimeout(page, wait.toMillis(), TimeUnit.MILLISECONDS);
+        subscription.open();
+        return result;
+    }
+    
+    /**
+     * Delivers every page after the cursor to the listener, then each new change as it is committed,
+     * until the subscription is closed
+     */
+    public Subscription subscribe(String after, int limit, Listener listener) {
+        validateLimit(limit);
+        Subscription subscription = new Subscription(parseCursor(after), limit, listener);
+        subscription.open();
+        return subscription;
+    }
+    
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+    
+    @EventListener
+    public void onOrderChange(OrderChangeEvent event) {
+        // Local changes wake subscribers once their transaction completes, see beginWrite
+        if (event.isRemote()) {
+            signal();
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        subscriptions.forEach(Subscription::close);
+        deliveryExecutor.shutdownNow();
+    }
+    
+    LocalDateTime watermark() {
+        synchronized (openWrites) {
+            return openWrites.isEmpty() ? Order.now() : openWrites.firstKey();
+        }
+    }
+    
+    private OrderChangesResponse read(Cursor cursor, int limit) {
+        LocalDateTime watermark = watermark();
+        LocalDateTime lagged = Order.now().minus(properties.getCommitLag());
+        LocalDateTime before = lagged.isBefore(watermark) ? lagged : watermark;
+        // One extra row tells whether another page follows. Read from the primary: the watermark
+        // only vouches for writes it has committed, which a replica may not have applied yet.
+        List<Order> orders = DataSourceRouting.onPrimary(() ->
+                orderRepository.findChangesAfter(cursor.changedAt(), cursor.id(), before, Limit.of(limit + 1)));
+        List<OrderTombstone> tombstones = DataSourceRouting.onPrimary(() ->
+                tombstoneRepository.findChangesAfter(cursor.changedAt(), cursor.id(), before, Limit.of(limit + 1)));
+        
+        List<OrderChange> changes = new ArrayList<>(Math.min(limit, orders.size() + tombstones.size()));
+        int nextOrder = 0;
+        int nextTombstone = 0;
+        while (changes.size() < limit && (nextOrder < orders.size() || nextTombstone < tombstones.size())) {
+            if (nextTombstone == tombstones.size()
+                    || (nextOrder < orders.size() && precedes(orders.get(nextOrder), tombstones.get(nextTombstone)))) {
+                changes.add(OrderChange.upserted(OrderService.mapToResponse(orders.get(nextOrder++))));
+            } else {
+                OrderTombstone tombstone = tombstones.get(nextTombstone++);
+                changes.add(OrderChange.deleted(tombstone.getOrderId(), tombstone.getDeletedAt()));
+            }
+        }
+        boolean hasMore = nextOrder < orders.size() || nextTombstone < tombstones.size();
+        Cursor next = changes.isEmpty() ? cursor : Cursor.of(changes.get(changes.size() - 1));
+        return new OrderChangesResponse(changes, next.toString(), hasMore);
+    }
+    
+    private static boolean precedes(Order order, OrderTombstone tombstone) {
+        int byTime = order.getUpdatedAt().compareTo(tombstone.getDeletedAt());
+        return byTime != 0 ? byTime < 0 : order.getId() < tombstone.getOrderId();
+    }
+    
+    private Cursor parseCursor(String after) {
+        if (after == null || after.isBlank()) {
+            return Cursor.BEGINNING;
+        }
+        Cursor cursor = Cursor.parse(after.trim());
+        if (cursor.changedAt().isBefore(Order.now().minus(properties.getTombstoneRetention()))) {
+            // Deletes before the retention window may already be forgotten
+            throw new IllegalArgumentException("Cursor is older than the delete retention of "
+                    + properties.getTombstoneRetention().toDays() + " days; resync from the beginning");
+        }
+        return cursor;
+    }
+    
+    private static void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+    
+    private void signal() {
+        subscriptions.forEach(Subscription::wake);
+        long lagNanos = properties.getCommitLag().toNanos();
+        if (lagNanos > 0 && !scheduler.isShutdown()) {
+            lastSignalNanos = System.nanoTime();
+            if (lagWakeScheduled.compareAndSet(false, true)) {
+                scheduler.schedule(this::wakeAfterLag, lagNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+    
+    /**
+     * Wakes the subscribers once the signalled changes are older than the commit lag, and again
+     * for changes signalled while this wake-up was pending
+     */
+    private void wakeAfterLag() {
+        lagWakeScheduled.set(false);
+        subscriptions.forEach(Subscription::wake);
+        long remaining = lastSignalNanos + properties.getCommitLag().toNanos() - System.nanoTime();
+        if (remaining > 0 && lagWakeScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::wakeAfterLag, remaining, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private void sendHeartbeats() {
+        subscriptions.forEach(subscription -> deliveryExecutor.execute(subscription::heartbeat));
+    }
+    
+    private void pruneTombstones() {
+        try {
+            int pruned = tombstoneRepository.deleteByDeletedAtBefore(Order.now().minus(properties.getTombstoneRetention()));
+            if (pruned > 0) {
+                log.info("Pruned {} order tombstones older than {}", pruned, properties.getTombstoneRetention());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to prune order tombstones: {}", ex.getMessage());
+        }
+    }
+    
+    /**
+     * A write transaction holding back the watermark; closing it more than once has no effect
+     */
+    public final class OpenWrite implements AutoCloseable {
+        
+        private final LocalDateTime startedAt;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        
+        private OpenWrite(LocalDateTime startedAt) {
+            this.startedAt = startedAt;
+        }
+        
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            synchronized (openWrites) {
+                openWrites.computeIfPresent(startedAt, (time, count) -> count > 1 ? count - 1 : null);
+            }
+            signal();
+        }
+    }
+    
+    /**
+     * A consumer reading on from its own cursor. At most one read runs at a time; wake-ups arriving
+     * during a read are folded into one more read after it.
+     */
+    public final class Subscription implements AutoCloseable {
+        
+        private final int limit;
+        private final Listener listener;
+        private final AtomicBoolean delivering = new AtomicBoolean();
+        private volatile Cursor cursor;
+        private volatile boolean pending;
+        private volatile boolean closed;
+        
+        private Subscription(Cursor cursor, int limit, Listener listener) {
+            this.cursor = cursor;
+            this.limit = limit;
+            this.listener = listener;
+        }
+        
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+        
+        private void open() {
+            subscriptions.add(this);
+            wake();
+        }
+        
+        private void wake() {
+            pending = true;
+            if (!closed && delivering.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::deliver);
+            }
+        }
+        
+        private void deliver() {
+            try {
+                while (pending && !closed) {
+                    pending = false;
+                    OrderChangesResponse page;
+                    do {
+                        page = read(cursor, limit);
+                        if (page.getChanges().isEmpty()) {
+                            break;
+                        }
+                        cursor = Cursor.parse(page.getNextCursor());
+                        listener.onChanges(page);
+                    } while (page.isHasMore() && !closed);
+                }
+            } catch (IOException | RuntimeException ex) {
+                log.debug("Closing order change subscription: {}", ex.getMessage());
+                close();
+                listener.onError(ex);
+            } finally {
+                delivering.set(false);
+            }
+            // A wake-up that arrived after the last check found the delivery still running
+            if (pending && !closed) {
+                wake();
+            }
+        }
+        
+        private void heartbeat() {
+            try {
+                listener.onHeartbeat();
+            } catch (IOException | RuntimeException ex) {
+                log.debug("Closing order change subscription after failed heartbeat: {}", ex.getMessage());
+                close();
+                listener.onError(ex);
+            }
+        }
+    }
+}
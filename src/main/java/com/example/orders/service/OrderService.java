@@ -1,20 +1,52 @@
 package com.example.orders.service;
 
+import com.example.orders.datasource.DataSourceRouting;
+import com.example.orders.dto.AmountStatsResponse;
+import com.example.orders.dto.BatchOrderResult;
+import com.example.orders.dto.OrderJson;
+import com.example.orders.dto.OrderLookupResponse;
+import com.example.orders.dto.OrderPageResponse;
 import com.example.orders.dto.OrderRequest;
 import com.example.orders.dto.OrderResponse;
 import com.example.orders.entity.Order;
+import com.example.orders.entity.OrderTombstone;
+import com.example.orders.event.OrderChangeEvent;
+import com.example.orders.exception.OrderNotFoundException;
+import com.example.orders.exception.OrderVersionMismatchException;
+import com.example.orders.index.AmountIndex;
+import com.example.orders.index.CustomerNameIndex;
+import com.example.orders.metrics.OrderMetrics;
+import com.example.orders.repository.AmountAggregate;
 import com.example.orders.repository.OrderRepository;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -22,11 +54,34 @@ import java.util.stream.Collectors;
 @Transactional
 public class OrderService {
     
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 10_000;
+    public static final int MAX_SEARCH_RESULTS = 1000;
+    public static final int MAX_LOOKUP_IDS = 1000;
+    
+    /**
+     * Largest amount the orders.amount column, NUMERIC(10, 2), can hold
+     */
+    static final BigDecimal MAX_AMOUNT = new BigDecimal("99999999.99");
+    
+    // Flush and clear the persistence context every this many inserts to bound heap usage
+    private static final int BATCH_FLUSH_SIZE = 500;
+    
     private final OrderRepository orderRepository;
     private final CacheService cacheService;
+    private final MissingOrderCache missingOrderCache;
+    private final OrderCacheDispatcher cacheDispatcher;
+    private final OrderChangeFeed changeFeed;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final CustomerNameIndex customerNameIndex;
+    private final AmountIndex amountIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderMetrics orderMetrics;
     
     public OrderResponse createOrder(OrderRequest request) {
-        log.info("Creating new order for customer: {}", request.getCustomerName());
+        log.debug("Creating new order for customer: {}", request.getCustomerName());
+        changeFeed.beginWrite();
         
         Order order = new Order();
         order.setCustomerName(request.getCustomerName());
@@ -36,113 +91,454 @@ public class OrderService {
         log.info("Order created successfully with ID: {}", savedOrder.getId());
         
         OrderResponse response = mapToResponse(savedOrder);
-        // Cache the newly created order
-        cacheService.cacheOrder(response);
+        // Cache the newly created order once it is committed
+        cacheDispatcher.created(List.of(response));
+        eventPublisher.publishEvent(OrderChangeEvent.upserted(response));
         return response;
     }
     
+    /**
+     * Validate every request individually and insert the valid ones using JDBC batching.
+     * Null entries stand for items the caller could not parse. Indexes in the returned
+     * results start at {@code firstIndex} so callers can ingest a stream chunk by chunk.
+     */
+    public List<BatchOrderResult> createOrders(List<OrderRequest> requests, int firstIndex) {
+        log.debug("Creating batch of {} orders", requests.size());
+        
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + MAX_BATCH_SIZE + " orders");
+        }
+        changeFeed.beginWrite();
+        
+        List<BatchOrderResult> results = new ArrayList<>(requests.size());
+        List<OrderResponse> created = new ArrayList<>(requests.size());
+        List<Order> pending = new ArrayList<>(BATCH_FLUSH_SIZE);
+        List<Integer> pendingIndexes = new ArrayList<>(BATCH_FLUSH_SIZE);
+        
+        for (int i = 0; i < requests.size(); i++) {
+            OrderRequest request = requests.get(i);
+            int index = firstIndex + i;
+            
+            List<String> errors = validate(validator, request);
+            if (!errors.isEmpty()) {
+                results.add(BatchOrderResult.invalid(index, errors));
+                continue;
+            }
+            
+            Order order = new Order();
+            order.setCustomerName(request.getCustomerName());
+            order.setAmount(request.getAmount());
+            pending.add(order);
+            pendingIndexes.add(index);
+            
+            if (pending.size() == BATCH_FLUSH_SIZE) {
+                flushBatch(pending, pendingIndexes, results, created);
+            }
+        }
+        flushBatch(pending, pendingIndexes, results, created);
+        
+        // Results of flushed chunks were appended after later invalid items; restore input order
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        log.info("Batch created {} of {} orders", created.size(), requests.size());
+        
+        // Warm the cache for the new orders in one pipelined round-trip after commit
+        cacheDispatcher.created(created);
+        if (!created.isEmpty()) {
+            eventPublisher.publishEvent(OrderChangeEvent.upserted(created));
+        }
+        return results;
+    }
+    
+    /**
+     * The order as the JSON the API returns for it, so cache hits never decode or re-encode it.
+     * IDs found missing recently are answered from the negative cache without any lookup. Only
+     * orders found count towards the hot set, so probes of missing IDs cannot crowd it.
+     */
     @Transactional(readOnly = true)
-    public OrderResponse getOrderById(Long id) {
-        log.info("Fetching order with ID: {}", id);
+    public OrderJson getOrderById(Long id) {
+        log.debug("Fetching order with ID: {}", id);
         
-        // First, try to get from cache
-        OrderResponse cachedOrder = cacheService.getCachedOrder(id);
-        if (cachedOrder != null) {
-            log.info("Order with ID: {} retrieved from cache", id);
-            return cachedOrder;
+        Timer.Sample sample = orderMetrics.startLookup();
+        AtomicBoolean loadedFromDatabase = new AtomicBoolean();
+        RuntimeException error = null;
+        try {
+            if (missingOrderCache.isMissing(id)) {
+                throw new OrderNotFoundException(id);
+            }
+            long lookupToken = missingOrderCache.lookupStarted(id);
+            // Served from cache; on a miss a single caller per ID loads it from the database
+            OrderJson order = cacheService.getOrLoadOrder(id, () -> {
+                loadedFromDatabase.set(true);
+                log.debug("Order with ID: {} not found in cache, fetching from database", id);
+                // Cache fills read the primary: a lagging replica would cache a stale order
+                return orderMetrics.timeDatabaseQuery("findById",
+                                () -> DataSourceRouting.onPrimary(() -> orderRepository.findById(id)))
+                        .map(OrderService::mapToResponse)
+                        .orElse(null);
+            });
+            if (order == null) {
+                missingOrderCache.markMissing(id, lookupToken);
+                throw new OrderNotFoundException(id);
+            }
+            cacheService.recordAccess(id);
+            return order;
+        } catch (RuntimeException ex) {
+            error = ex;
+            throw ex;
+        } finally {
+            orderMetrics.recordLookup(sample,
+                    loadedFromDatabase.get() ? OrderMetrics.SOURCE_DATABASE : OrderMetrics.SOURCE_CACHE, error);
         }
+    }
+    
+    /**
+     * Resolve many orders in a few round-trips: cached orders come from the local tier and one
+     * Redis MGET, every miss from a single IN query, and the misses are written back in one
+     * pipeline. IDs found missing recently are not queried again. Orders are returned in request order.
+     */
+    @Transactional(readOnly = true)
+    public OrderLookupResponse getOrdersByIds(List<Long> ids) {
+        log.debug("Looking up {} orders by ID", ids == null ? 0 : ids.size());
         
-        // If not in cache, get from database
-        log.info("Order with ID: {} not found in cache, fetching from database", id);
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + id));
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_LOOKUP_IDS) {
+            throw new IllegalArgumentException("ids must contain between 1 and " + MAX_LOOKUP_IDS + " IDs");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("ids must not contain null");
+        }
         
-        OrderResponse response = mapToResponse(order);
-        // Cache the order for future requests
-        cacheService.cacheOrder(response);
-        log.info("Order with ID: {} cached for future requests", id);
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        Map<Long, OrderJson> ordersById = cacheService.getCachedOrders(distinctIds);
         
-        return response;
+        List<Long> misses = distinctIds.stream()
+                .filter(id -> !ordersById.containsKey(id) && !missingOrderCache.isMissing(id))
+                .toList();
+        if (!misses.isEmpty()) {
+            log.debug("{} of {} orders not in cache, fetching from database", misses.size(), distinctIds.size());
+            long[] lookupTokens = misses.stream().mapToLong(missingOrderCache::lookupStarted).toArray();
+            Map<Long, Long> generations = cacheService.getWriteGenerations(misses);
+            List<OrderJson> loaded = cacheService.backfillOrders(
+                    DataSourceRouting.onPrimary(() -> findAllInOrder(misses)), generations);
+            loaded.forEach(order -> ordersById.put(order.getId(), order));
+            for (int i = 0; i < misses.size(); i++) {
+                if (!ordersById.containsKey(misses.get(i))) {
+                    missingOrderCache.markMissing(misses.get(i), lookupTokens[i]);
+                }
+            }
+        }
+        
+        ordersById.keySet().forEach(cacheService::recordAccess);
+        
+        List<OrderJson> orders = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            OrderJson order = ordersById.get(id);
+            if (order != null) {
+                orders.add(order);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new OrderLookupResponse(orders, missingIds);
+    }
+    
+    /**
+     * IDs of the newest orders, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getRecentOrderIds(int limit) {
+        return orderRepository.findRecentIds(PageRequest.of(0, limit));
+    }
+    
+    /**
+     * Orders read straight from the primary database, bypassing the cache, in the order of the
+     * given IDs; missing IDs are skipped
+     */
+    @Transactional(readOnly = true)
+    public List<OrderResponse> loadOrders(List<Long> ids) {
+        return DataSourceRouting.onPrimary(() -> findAllInOrder(ids));
     }
     
     @Transactional(readOnly = true)
     public List<OrderResponse> getAllOrders() {
-        log.info("Fetching all orders");
+        log.debug("Fetching all orders");
         
         return orderRepository.findAll()
                 .stream()
-                .map(this::mapToResponse)
+                .map(OrderService::mapToResponse)
                 .collect(Collectors.toList());
     }
     
     @Transactional(readOnly = true)
-    public List<OrderResponse> searchByCustomerName(String customerName) {
-        log.info("Fetching orders for customer: {}", customerName);
+    public OrderPageResponse getOrdersPage(Long afterId, int limit) {
+        log.debug("Fetching orders page after ID: {} with limit: {}", afterId, limit);
         
-        return orderRepository.findByCustomerNameContainingIgnoreCase(customerName)
-                .stream()
-                .map(this::mapToResponse)
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        
+        // Fetch one extra row to learn whether another page exists
+        List<Order> orders = orderRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(limit + 1));
+        boolean hasMore = orders.size() > limit;
+        List<OrderResponse> page = orders.stream()
+                .limit(limit)
+                .map(OrderService::mapToResponse)
                 .collect(Collectors.toList());
+        Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+        
+        return new OrderPageResponse(page, nextCursor, hasMore);
     }
     
+    /**
+     * Push every order to the consumer in ID order without holding the result set in memory.
+     * Entities are detached as soon as they are mapped so the persistence context stays empty.
+     */
     @Transactional(readOnly = true)
-    public List<OrderResponse> searchByAmountRange(BigDecimal minAmount, BigDecimal maxAmount) {
-        log.info("Fetching orders with amount between {} and {}", minAmount, maxAmount);
+    public void streamAllOrders(Consumer<OrderResponse> consumer) {
+        log.debug("Streaming all orders");
         
-        if (minAmount == null || maxAmount == null) {
-            throw new IllegalArgumentException("Both minAmount and maxAmount must be provided");
+        try (Stream<Order> orders = orderRepository.streamAllOrderedById()) {
+            orders.forEach(order -> {
+                consumer.accept(mapToResponse(order));
+                entityManager.detach(order);
+            });
         }
+    }
+    
+    @Transactional(readOnly = true)
+    public List<OrderResponse> searchByCustomerName(String customerName, CustomerNameIndex.MatchMode mode, int limit) {
+        log.debug("Fetching up to {} orders for customer {} match: {}", limit, mode, customerName);
         
-        if (minAmount.compareTo(maxAmount) > 0) {
-            throw new IllegalArgumentException("minAmount cannot be greater than maxAmount");
+        if (customerName == null || customerName.isBlank()) {
+            throw new IllegalArgumentException("customerName must not be blank");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_SEARCH_RESULTS);
         }
         
-        return orderRepository.findByAmountBetween(minAmount, maxAmount)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        if (!customerNameIndex.isReady()) {
+            // Index still being built; fall back to a (slow) bounded LIKE query
+            List<Order> orders = mode == CustomerNameIndex.MatchMode.PREFIX
+                    ? orderRepository.findByCustomerNameStartingWithIgnoreCaseOrderByCustomerNameAscIdAsc(customerName.trim(), Limit.of(limit))
+                    : orderRepository.findByCustomerNameContainingIgnoreCaseOrderByCustomerNameAscIdAsc(customerName.trim(), Limit.of(limit));
+            return orders.stream()
+                    .map(OrderService::mapToResponse)
+                    .collect(Collectors.toList());
+        }
+        
+        return findAllInOrder(customerNameIndex.search(customerName, mode, limit));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<OrderResponse> searchByAmountRange(BigDecimal minAmount, BigDecimal maxAmount, int page, int size) {
+        log.debug("Fetching orders with amount between {} and {} (page {}, size {})", minAmount, maxAmount, page, size);
+        
+        validateAmountRange(minAmount, maxAmount);
+        validatePage(page, size);
+        
+        if (!amountIndex.isReady()) {
+            return orderRepository.findByAmountBetweenOrderByAmountAscIdAsc(minAmount, maxAmount, PageRequest.of(page, size))
+                    .stream()
+                    .map(OrderService::mapToResponse)
+                    .collect(Collectors.toList());
+        }
+        
+        long[] ids = amountIndex.findIds(AmountIndex.toCentsCeiling(minAmount), AmountIndex.toCentsFloor(maxAmount),
+                page * size, size);
+        return findAllInOrder(Arrays.stream(ids).boxed().collect(Collectors.toList()));
     }
     
-    public OrderResponse updateOrder(Long id, OrderRequest request) {
-        log.info("Updating order with ID: {}", id);
+    @Transactional(readOnly = true)
+    public AmountStatsResponse getAmountStats(BigDecimal minAmount, BigDecimal maxAmount) {
+        log.debug("Computing amount statistics between {} and {}", minAmount, maxAmount);
+        
+        validateAmountRange(minAmount, maxAmount);
+        
+        if (!amountIndex.isReady()) {
+            // Percentiles need the index; the database only supplies the plain aggregates
+            return toAmountStats(orderRepository.aggregateByAmountBetween(minAmount, maxAmount));
+        }
+        return amountStatsFromIndex(amountIndex, minAmount, maxAmount);
+    }
+    
+    static AmountStatsResponse toAmountStats(AmountAggregate aggregate) {
+        return AmountStatsResponse.builder()
+                .count(aggregate.getCount())
+                .sum(aggregate.getSum() != null ? aggregate.getSum() : BigDecimal.ZERO)
+                .average(aggregate.getCount() > 0
+                        ? aggregate.getSum().divide(BigDecimal.valueOf(aggregate.getCount()), 2, RoundingMode.HALF_UP)
+                        : null)
+                .min(aggregate.getMin())
+                .max(aggregate.getMax())
+                .build();
+    }
+    
+    static AmountStatsResponse amountStatsFromIndex(AmountIndex amountIndex, BigDecimal minAmount, BigDecimal maxAmount) {
+        AmountIndex.RangeStats stats = amountIndex.stats(AmountIndex.toCentsCeiling(minAmount),
+                AmountIndex.toCentsFloor(maxAmount), 0.50, 0.90, 0.99);
+        if (stats.count() == 0) {
+            return AmountStatsResponse.builder().count(0).sum(BigDecimal.ZERO).build();
+        }
+        return AmountStatsResponse.builder()
+                .count(stats.count())
+                .sum(AmountIndex.fromCents(stats.sum()))
+                .average(AmountIndex.fromCents(stats.sum()).divide(BigDecimal.valueOf(stats.count()), 2, RoundingMode.HALF_UP))
+                .min(AmountIndex.fromCents(stats.min()))
+                .max(AmountIndex.fromCents(stats.max()))
+                .p50(AmountIndex.fromCents(stats.percentiles()[0]))
+                .p90(AmountIndex.fromCents(stats.percentiles()[1]))
+                .p99(AmountIndex.fromCents(stats.percentiles()[2]))
+                .build();
+    }
+    
+    /**
+     * Update an order, optionally only if it is still at {@code expectedVersion}. Either way an
+     * update racing another one fails on the version column instead of overwriting it.
+     */
+    public OrderResponse updateOrder(Long id, OrderRequest request, Long expectedVersion) {
+        log.debug("Updating order with ID: {}", id);
+        changeFeed.beginWrite();
         
         Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + id));
+                .orElseThrow(() -> new OrderNotFoundException(id));
+        checkVersion(order, expectedVersion);
         
         order.setCustomerName(request.getCustomerName());
         order.setAmount(request.getAmount());
         
-        Order updatedOrder = orderRepository.save(order);
+        // Flush now so that the response carries the updatedAt and version stamped on update
+        Order updatedOrder;
+        try {
+            updatedOrder = orderRepository.saveAndFlush(order);
+        } catch (OptimisticLockingFailureException ex) {
+            throw expectedVersion != null ? new OrderVersionMismatchException(id, expectedVersion) : ex;
+        }
         log.info("Order updated successfully with ID: {}", updatedOrder.getId());
         
         OrderResponse response = mapToResponse(updatedOrder);
-        // Update the cache with the new order data
-        cacheService.cacheOrder(response);
-        log.info("Order with ID: {} updated in cache", id);
+        // Update the cache with the new order data once it is committed
+        cacheDispatcher.updated(response);
+        eventPublisher.publishEvent(OrderChangeEvent.upserted(response));
         
         return response;
     }
     
-    public void deleteOrder(Long id) {
-        log.info("Deleting order with ID: {}", id);
+    /**
+     * Delete an order, optionally only if it is still at {@code expectedVersion}
+     */
+    public void deleteOrder(Long id, Long expectedVersion) {
+        log.debug("Deleting order with ID: {}", id);
+        changeFeed.beginWrite();
         
-        if (!orderRepository.existsById(id)) {
-            throw new RuntimeException("Order not found with ID: " + id);
-        }
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new OrderNotFoundException(id));
+        checkVersion(order, expectedVersion);
         
-        orderRepository.deleteById(id);
-        // Remove the order from cache
-        cacheService.evictOrder(id);
+        try {
+            orderRepository.delete(order);
+            orderRepository.flush();
+        } catch (OptimisticLockingFailureException ex) {
+            throw expectedVersion != null ? new OrderVersionMismatchException(id, expectedVersion) : ex;
+        }
+        // Leave a tombstone so that change feed consumers learn about the delete
+        entityManager.persist(new OrderTombstone(id, Order.now()));
+        // Remove the order from cache once the delete is committed
+        cacheDispatcher.deleted(id);
+        eventPublisher.publishEvent(OrderChangeEvent.deleted(id));
         log.info("Order deleted successfully with ID: {} and removed from cache", id);
     }
     
-    private OrderResponse mapToResponse(Order order) {
+    static void checkVersion(Order order, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+            throw new OrderVersionMismatchException(order.getId(), expectedVersion);
+        }
+    }
+    
+    static void validateAmountRange(BigDecimal minAmount, BigDecimal maxAmount) {
+        if (minAmount == null || maxAmount == null) {
+            throw new IllegalArgumentException("Both minAmount and maxAmount must be provided");
+        }
+        
+        if (minAmount.compareTo(maxAmount) > 0) {
+            throw new IllegalArgumentException("minAmount cannot be greater than maxAmount");
+        }
+        
+        if (minAmount.abs().compareTo(MAX_AMOUNT) > 0 || maxAmount.abs().compareTo(MAX_AMOUNT) > 0) {
+            throw new IllegalArgumentException("minAmount and maxAmount must be between -" + MAX_AMOUNT + " and " + MAX_AMOUNT);
+        }
+    }
+    
+    /**
+     * Also bounds the offset of the page, so that it fits an int
+     */
+    static void validatePage(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        if (size < 1 || size > MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+        if ((long) page * size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("page * size must not exceed " + Integer.MAX_VALUE);
+        }
+    }
+    
+    /**
+     * Load orders by primary key with one IN query, keeping the order of the given IDs
+     */
+    private List<OrderResponse> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Order> ordersById = orderRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.stream()
+                .map(ordersById::get)
+                .filter(Objects::nonNull)
+                .map(OrderService::mapToResponse)
+                .collect(Collectors.toList());
+    }
+    
+    static List<String> validate(Validator validator, OrderRequest request) {
+        if (request == null) {
+            return List.of("Malformed order");
+        }
+        Set<ConstraintViolation<OrderRequest>> violations = validator.validate(request);
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+    
+    private void flushBatch(List<Order> pending,
+                            List<Integer> pendingIndexes,
+                            List<BatchOrderResult> results,
+                            List<OrderResponse> created) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        orderRepository.saveAll(pending);
+        entityManager.flush();
+        for (int i = 0; i < pending.size(); i++) {
+            OrderResponse response = mapToResponse(pending.get(i));
+            results.add(BatchOrderResult.created(pendingIndexes.get(i), response));
+            created.add(response);
+        }
+        entityManager.clear();
+        pending.clear();
+        pendingIndexes.clear();
+    }
+    
+    static OrderResponse mapToResponse(Order order) {
         OrderResponse response = new OrderResponse();
         response.setId(order.getId());
         response.setCustomerName(order.getCustomerName());
         response.setAmount(order.getAmount());
         response.setCreatedAt(order.getCreatedAt());
         response.setUpdatedAt(order.getUpdatedAt());
+        response.setVersion(order.getVersion());
         return response;
     }
 }
@@ -0,0 +1,265 @@
+package com.example.orders.service;
+
+import com.example.orders.cache.LoadStatistics;
+import com.example.orders.cache.TwoTierCache;
+import com.example.orders.cache.TwoTierCacheManager;
+import com.example.orders.config.OrderCacheProperties;
+import com.example.orders.dto.CacheStatsResponse;
+import com.example.orders.dto.CacheStatusResponse;
+import com.example.orders.dto.OrderJson;
+import com.example.orders.dto.OrderResponse;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The order cache of {@link CacheService} for the reactive stack. Both share the local tier of the
+ * two-tier cache and the Redis entries, but here Redis is read and written through reactive
+ * Lettuce behind the same circuit breaker, so that no event loop thread waits on it.
+ * <p>
+ * Orders changed by a write are cached through {@link OrderCacheDispatcher} like on the servlet
+ * stack, which keeps the invalidation broadcast to other instances in one place; that and the
+ * cache management calls are blocking and run on the bounded elastic scheduler.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveCacheService {
+    
+    private final TwoTierCacheManager cacheManager;
+    private final CacheService cacheService;
+    private final ReactiveRedisTemplate<String, Object> reactiveOrderRedisTemplate;
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final OrderCacheProperties cacheProperties;
+    private final CircuitBreaker redisCircuitBreaker;
+    
+    // Loads in progress by order ID, so that concurrent misses share one database read
+    private final Map<Long, CompletableFuture<OrderJson>> inFlightLoads = new ConcurrentHashMap<>();
+    
+    /**
+     * Retrieve an order from the local tier or Redis, or load it with the given loader on a miss
+     * and cache it. Concurrent misses for the same ID share one load. Completes empty, caching
+     * nothing, when the loader does.
+     */
+    public Mono<OrderJson> getOrLoadOrder(Long id, Mono<OrderResponse> loader) {
+        return Mono.defer(() -> {
+            Object local = orderCache().getAllPresentLocal(List.of(id)).get(id);
+            if (local != null) {
+                return Mono.just(toOrderJson(local));
+            }
+            return redisGet(id).switchIfEmpty(Mono.defer(() -> load(id, loader)));
+        });
+    }
+    
+    /**
+     * Look up many orders at once: the local tier first, then a single Redis MGET for the rest.
+     * IDs that are absent, possibly stale in Redis, or unreadable because Redis failed, are left
+     * out for the caller to load.
+     */
+    public Mono<Map<Long, OrderJson>> getCachedOrders(List<Long> ids) {
+        return Mono.defer(() -> {
+            TwoTierCache cache = orderCache();
+            Map<Long, OrderJson> found = new HashMap<>();
+            cache.getAllPresentLocal(ids).forEach((key, value) -> found.put((Long) key, toOrderJson(value)));
+    
+            List<Long> remaining = ids.stream()
+                    .filter(id -> !found.containsKey(id) && cache.isRedisEntryTrusted(id))
+                    .toList();
+            if (remaining.isEmpty()) {
+                return Mono.just(found);
+            }
+            return reactiveOrderRedisTemplate.opsForValue()
+                    .multiGet(remaining.stream().map(CacheService::orderKey).toList())
+                    .transformDeferred(CircuitBreakerOperator.of(redisCircuitBreaker))
+                    .map(values -> {
+                        Map<Long, OrderJson> fromRedis = new HashMap<>();
+                        for (int i = 0; i < remaining.size(); i++) {
+                            if (values.get(i) instanceof OrderJson || values.get(i) instanceof OrderResponse) {
+                                fromRedis.put(remaining.get(i), toOrderJson(values.get(i)));
+                            }
+                        }
+                        cache.acceptRedisValues(fromRedis, remaining.size());
+                        found.putAll(fromRedis);
+                        return found;
+                    })
+                    .onErrorResume(ex -> redisFailed("Bulk cache read of " + remaining.size() + " orders", ex)
+                            .thenReturn(found));
+        });
+    }
+    
+    /**
+     * Write generations of the given orders in the cache, to read before loading them from the database
+     */
+    public Map<Long, Long> getWriteGenerations(List<Long> ids) {
+        return orderCache().getWriteGenerations(ids);
+    }
+    
+    /**
+     * Cache orders that a bulk read loaded from the database: locally, and in Redis without
+     * replacing entries a concurrent update may have written meanwhile. Lettuce pipelines the
+     * writes over its shared connection. Orders updated or deleted since the given write
+     * generations were read are skipped, or evicted again if that happened while they were being
+     * cached. Completes with the orders as read, in the given order.
+     */
+    public Mono<List<OrderJson>> backfillOrders(List<OrderResponse> orderResponses, Map<Long, Long> generations) {
+        if (orderResponses.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        List<OrderJson> rendered = orderResponses.stream().map(cacheService::render).toList();
+        Map<Long, OrderJson> byId = new HashMap<>();
+        rendered.forEach(order -> byId.put(order.getId(), order));
+        Map<Long, OrderJson> kept = orderCache().putAllLocal(byId, generations);
+        return Flux.fromIterable(kept.values())
+                .flatMap(order -> reactiveOrderRedisTemplate.opsForValue()
+                        .setIfAbsent(CacheService.orderKey(order.getId()), order, cacheProperties.getRedis().getTtl()))
+                .then()
+                .transformDeferred(CircuitBreakerOperator.of(redisCircuitBreaker))
+                .onErrorResume(ex -> redisFailed("Caching " + kept.size() + " orders", ex))
+                .then(evictWrittenSince(kept.keySet(), generations))
+                .thenReturn(rendered);
+    }
+    
+    /**
+     * Count a sample of order reads in the shared hot set used by the cache warm-up, without waiting for Redis
+     */
+    public void recordAccess(Long id) {
+        OrderCacheProperties.Warmup warmup = cacheProperties.getWarmup();
+        if (ThreadLocalRandom.current().nextDouble() >= warmup.getAccessSampleRate()) {
+            return;
+        }
+        reactiveStringRedisTemplate.opsForZSet()
+                .incrementScore(warmup.getHotSetKey(), id.toString(), 1)
+                .transformDeferred(CircuitBreakerOperator.of(redisCircuitBreaker))
+                .subscribe(null, ex -> log.debug("Failed to record access to order {}: {}", id, ex.getMessage()));
+    }
+    
+    public Mono<Void> evictOrder(Long id) {
+        return Mono.fromRunnable(() -> cacheService.evictOrder(id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+    
+    public Mono<Void> evictAllOrders() {
+        return Mono.fromRunnable(cacheService::evictAllOrders)
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+    
+    public Mono<CacheStatusResponse> getStatus() {
+        return Mono.fromCallable(cacheService::getStatus)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    public Mono<Map<String, CacheStatsResponse>> getStatistics() {
+        return Mono.fromCallable(cacheService::getStatistics)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    private Mono<OrderJson> redisGet(Long id) {
+        TwoTierCache cache = orderCache();
+        if (!cache.isRedisEntryTrusted(id)) {
+            return Mono.empty();
+        }
+        return reactiveOrderRedisTemplate.opsForValue()
+                .get(CacheService.orderKey(id))
+                .transformDeferred(CircuitBreakerOperator.of(redisCircuitBreaker))
+                .filter(value -> value instanceof OrderJson || value instanceof OrderResponse)
+                .map(this::toOrderJson)
+                .doOnSuccess(order -> cache.acceptRedisValues(order == null ? Map.of() : Map.of(id, order), 1))
+                .onErrorResume(ex -> redisFailed("Cache read of order " + id, ex).then(Mono.empty()));
+    }
+    
+    private Mono<OrderJson> load(Long id, Mono<OrderResponse> loader) {
+        LoadStatistics loadStats = orderCache().getLoadStatistics();
+        CompletableFuture<OrderJson> load = new CompletableFuture<>();
+        CompletableFuture<OrderJson> inFlight = inFlightLoads.putIfAbsent(id, load);
+        if (inFlight != null) {
+            loadStats.recordCoalescedLoad();
+            return Mono.fromFuture(inFlight, true);
+        }
+        long generation = orderCache().getWriteGeneration(id);
+        long start = System.nanoTime();
+        return loader
+                .map(cacheService::render)
+                .flatMap(order -> store(order, generation).thenReturn(order))
+                .doOnSuccess(order -> {
+                    loadStats.recordLoad(System.nanoTime() - start);
+                    load.complete(order);
+                })
+                .doOnError(ex -> {
+                    loadStats.recordLoadFailure();
+                    load.completeExceptionally(ex);
+                })
+                // Callers waiting on an abandoned load fail rather than wait forever
+                .doOnCancel(() -> load.cancel(false))
+                .doFinally(signal -> inFlightLoads.remove(id, load));
+    }
+    
+    /**
+     * Cache a loaded order locally and, unless a concurrent update got there first, in Redis;
+     * nowhere if the order was updated or deleted since the given write generation was read
+     */
+    private Mono<Void> store(OrderJson order, long generation) {
+        Map<Long, Long> generations = Map.of(order.getId(), generation);
+        if (orderCache().putAllLocal(Map.of(order.getId(), order), generations).isEmpty()) {
+            return Mono.empty();
+        }
+        return reactiveOrderRedisTemplate.opsForValue()
+                .setIfAbsent(CacheService.orderKey(order.getId()), order, cacheProperties.getRedis().getTtl())
+                .transformDeferred(CircuitBreakerOperator.of(redisCircuitBreaker))
+                .onErrorResume(ex -> redisFailed("Caching order " + order.getId(), ex).thenReturn(false))
+                .then(evictWrittenSince(List.of(order.getId()), generations));
+    }
+    
+    /**
+     * Evict cached orders whose update or delete raced with caching them, so that the value cached
+     * last is not one read before that write
+     */
+    private Mono<Void> evictWrittenSince(Collection<Long> ids, Map<Long, Long> generations) {
+        return Flux.defer(() -> Flux.fromIterable(orderCache().getKeysWrittenSince(ids, generations)))
+                .concatMap(this::evictOrder)
+                .then();
+    }
+    
+    /**
+     * Reads and writes carry on without Redis when it fails or the circuit breaker is open
+     */
+    private Mono<Void> redisFailed(String operation, Throwable ex) {
+        if (ex instanceof CallNotPermittedException) {
+            log.debug("Redis circuit breaker open, skipped: {}", operation);
+        } else {
+            orderCache().recordRedisError();
+            log.warn("{} failed: {}", operation, ex.getMessage());
+        }
+        return Mono.empty();
+    }
+    
+    /**
+     * Orders that earlier releases cached as {@link OrderResponse} are rendered on every read until they expire
+     */
+    private OrderJson toOrderJson(Object cached) {
+        return cached instanceof OrderResponse order ? cacheService.render(order) : (OrderJson) cached;
+    }
+    
+    private TwoTierCache orderCache() {
+        return (TwoTierCache) cacheManager.getCache(CacheService.ORDER_CACHE_NAME);
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.AmountStatsResponse;
+import com.example.orders.dto.BatchOrderResult;
+import com.example.orders.dto.OrderJson;
+import com.example.orders.dto.OrderLookupResponse;
+import com.example.orders.dto.OrderPageResponse;
+import com.example.orders.dto.OrderRequest;
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.entity.Order;
+import com.example.orders.event.OrderChangeEvent;
+import com.example.orders.exception.OrderNotFoundException;
+import com.example.orders.exception.OrderVersionMismatchException;
+import com.example.orders.index.AmountIndex;
+import com.example.orders.index.CustomerNameIndex;
+import com.example.orders.metrics.OrderMetrics;
+import com.example.orders.repository.ReactiveOrderRepository;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The operations of {@link OrderService} for the reactive stack, with the same validation, limits
+ * and errors. Orders are read and written through {@link ReactiveOrderRepository} and
+ * {@link ReactiveCacheService}; the in-memory search indexes and the negative cache are shared.
+ * <p>
+ * Once a write has committed, its cache updates and change event are handed to the same
+ * components as on the servlet stack, on the bounded elastic scheduler because they make blocking
+ * Redis calls. The response is sent after that, so a client reading its own write finds it cached.
+ * Every write holds back the change feed watermark while it is open, like a servlet write transaction.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveOrderService {
+    
+    // Rows per batched INSERT statement within a batch's transaction
+    private static final int BATCH_INSERT_SIZE = 500;
+    
+    private final ReactiveOrderRepository orderRepository;
+    private final ReactiveCacheService cacheService;
+    private final MissingOrderCache missingOrderCache;
+    private final OrderCacheDispatcher cacheDispatcher;
+    private final OrderChangeFeed changeFeed;
+    private final Validator validator;
+    private final CustomerNameIndex customerNameIndex;
+    private final AmountIndex amountIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderMetrics orderMetrics;
+    
+    public Mono<OrderResponse> createOrder(OrderRequest request) {
+        log.debug("Creating new order for customer: {}", request.getCustomerName());
+    
+        Order order = new Order();
+        order.setCustomerName(request.getCustomerName());
+        order.setAmount(request.getAmount());
+    
+        return asWrite(orderRepository.insertAll(List.of(order)).next())
+                .map(OrderService::mapToResponse)
+                .flatMap(response -> {
+                    log.info("Order created successfully with ID: {}", response.getId());
+                    return afterCommit(() -> {
+                        cacheDispatcher.created(List.of(response));
+                        eventPublisher.publishEvent(OrderChangeEvent.upserted(response));
+                    }).thenReturn(response);
+                });
+    }
+    
+    /**
+     * Validate every request individually and insert the valid ones in one transaction, with
+     * batched INSERT statements. Null entries stand for items the caller could not parse. Indexes
+     * in the returned results start at {@code firstIndex} so callers can ingest a stream chunk by chunk.
+     */
+    public Mono<List<BatchOrderResult>> createOrders(List<OrderRequest> requests, int firstIndex) {
+        log.debug("Creating batch of {} orders", requests.size());
+    
+        if (requests.size() > OrderService.MAX_BATCH_SIZE) {
+            return Mono.error(new IllegalArgumentException(
+                    "A batch cannot contain more than " + OrderService.MAX_BATCH_SIZE + " orders"));
+        }
+    
+        List<BatchOrderResult> results = new ArrayList<>(requests.size());
+        List<Order> pending = new ArrayList<>(requests.size());
+        List<Integer> pendingIndexes = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            OrderRequest request = requests.get(i);
+            List<String> errors = OrderService.validate(validator, request);
+            if (!errors.isEmpty()) {
+                results.add(BatchOrderResult.invalid(firstIndex + i, errors));
+                continue;
+            }
+            Order order = new Order();
+            order.setCustomerName(request.getCustomerName());
+            order.setAmount(request.getAmount());
+            pending.add(order);
+            pendingIndexes.add(firstIndex + i);
+        }
+    
+        Mono<List<OrderResponse>> inserted = Flux.range(0, (pending.size() + BATCH_INSERT_SIZE - 1) / BATCH_INSERT_SIZE)
+                .concatMap(chunk -> orderRepository.insertAll(pending.subList(chunk * BATCH_INSERT_SIZE,
+                        Math.min(pending.size(), (chunk + 1) * BATCH_INSERT_SIZE))))
+                .map(OrderService::mapToResponse)
+                .collectList();
+        return asWrite(orderRepository.inTransaction(inserted))
+                .flatMap(created -> {
+                    for (int i = 0; i < created.size(); i++) {
+                        results.add(BatchOrderResult.created(pendingIndexes.get(i), created.get(i)));
+                    }
+                    results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+                    log.info("Batch created {} of {} orders", created.size(), requests.size());
+                    if (created.isEmpty()) {
+                        return Mono.just(results);
+                    }
+                    // Warm the cache for the new orders in one pipelined round-trip
+                    return afterCommit(() -> {
+                        cacheDispatcher.created(created);
+                        eventPublisher.publishEvent(OrderChangeEvent.upserted(created));
+                    }).thenReturn(results);
+                });
+    }
+    
+    /**
+     * The order as the JSON the API returns for it; IDs found missing recently are answered from
+     * the negative cache without any lookup. Only orders found count towards the hot set.
+     */
+    public Mono<OrderJson> getOrderById(Long id) {
+        log.debug("Fetching order with ID: {}", id);
+    
+        return Mono.defer(() -> {
+            Timer.Sample sample = orderMetrics.startLookup();
+            AtomicBoolean loadedFromDatabase = new AtomicBoolean();
+            Mono<OrderJson> lookup;
+            if (missingOrderCache.isMissing(id)) {
+                lookup = Mono.error(new OrderNotFoundException(id));
+            } else {
+                long lookupToken = missingOrderCache.lookupStarted(id);
+                // Served from cache; on a miss a single caller per ID loads it from the database
+                Mono<OrderResponse> loader = Mono.defer(() -> {
+                    loadedFromDatabase.set(true);
+                    log.debug("Order with ID: {} not found in cache, fetching from database", id);
+                    return orderRepository.findById(id).map(OrderService::mapToResponse);
+                });
+                lookup = cacheService.getOrLoadOrder(id, loader)
+                        .switchIfEmpty(Mono.defer(() -> {
+                            missingOrderCache.markMissing(id, lookupToken);
+                            return Mono.error(new OrderNotFoundException(id));
+                        }));
+            }
+            return lookup.doOnNext(order -> cacheService.recordAccess(id)).doOnEach(signal -> {
+                if (signal.isOnNext() || signal.isOnError()) {
+                    orderMetrics.recordLookup(sample,
+                            loadedFromDatabase.get() ? OrderMetrics.SOURCE_DATABASE : OrderMetrics.SOURCE_CACHE,
+                            signal.getThrowable());
+                }
+            });
+        });
+    }
+    
+    /**
+     * Resolve many orders in a few round-trips: cached orders come from the local tier and one
+     * Redis MGET, every miss from a single IN query, and the misses are written back to Redis
+     * together. IDs found missing recently are not queried again. Orders are returned in request order.
+     */
+    public Mono<OrderLookupResponse> getOrdersByIds(List<Long> ids) {
+        log.debug("Looking up {} orders by ID", ids == null ? 0 : ids.size());
+    
+        if (ids == null || ids.isEmpty() || ids.size() > OrderService.MAX_LOOKUP_IDS) {
+            return Mono.error(new IllegalArgumentException(
+                    "ids must contain between 1 and " + OrderService.MAX_LOOKUP_IDS + " IDs"));
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            return Mono.error(new IllegalArgumentException("ids must not contain null"));
+        }
+    
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        return cacheService.getCachedOrders(distinctIds).flatMap(ordersById -> {
+            List<Long> misses = distinctIds.stream()
+                    .filter(id -> !ordersById.containsKey(id) && !missingOrderCache.isMissing(id))
+                    .toList();
+            if (misses.isEmpty()) {
+                return Mono.just(toLookupResponse(ids, ordersById));
+            }
+            log.debug("{} of {} orders not in cache, fetching from database", misses.size(), distinctIds.size());
+            long[] lookupTokens = misses.stream().mapToLong(missingOrderCache::lookupStarted).toArray();
+            Map<Long, Long> generations = cacheService.getWriteGenerations(misses);
+            return findAllInOrder(misses)
+                    .collectList()
+                    .flatMap(loaded -> cacheService.backfillOrders(loaded, generations))
+                    .map(loaded -> {
+                        loaded.forEach(order -> ordersById.put(order.getId(), order));
+                        for (int i = 0; i < misses.size(); i++) {
+                            if (!ordersById.containsKey(misses.get(i))) {
+                                missingOrderCache.markMissing(misses.get(i), lookupTokens[i]);
+                            }
+                        }
+                        return toLookupResponse(ids, ordersById);
+                    });
+        });
+    }
+    
+    /**
+     * Every order in ID order, streamed from the database as it is read
+     */
+    public Flux<OrderResponse> getAllOrders() {
+        log.debug("Fetching all orders");
+    
+        return orderRepository.findAllOrderedById().map(OrderService::mapToResponse);
+    }
+    
+    public Mono<OrderPageResponse> getOrdersPage(Long afterId, int limit) {
+        log.debug("Fetching orders page after ID: {} with limit: {}", afterId, limit);
+    
+        if (limit < 1 || limit > OrderService.MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException("limit must be between 1 and " + OrderService.MAX_PAGE_SIZE));
+        }
+    
+        // Fetch one extra row to learn whether another page exists
+        return orderRepository.findByIdGreaterThan(afterId != null ? afterId : 0L, limit + 1)
+                .map(OrderService::mapToResponse)
+                .collectList()
+                .map(orders -> {
+                    boolean hasMore = orders.size() > limit;
+                    List<OrderResponse> page = hasMore ? orders.subList(0, limit) : orders;
+                    Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+                    return new OrderPageResponse(page, nextCursor, hasMore);
+                });
+    }
+    
+    public Flux<OrderResponse> searchByCustomerName(String customerName, CustomerNameIndex.MatchMode mode, int limit) {
+        log.debug("Fetching up to {} orders for customer {} match: {}", limit, mode, customerName);
+    
+        if (customerName == null || customerName.isBlank()) {
+            return Flux.error(new IllegalArgumentException("customerName must not be blank"));
+        }
+        if (limit < 1 || limit > OrderService.MAX_SEARCH_RESULTS) {
+            return Flux.error(new IllegalArgumentException("limit must be between 1 and " + OrderService.MAX_SEARCH_RESULTS));
+        }
+    
+        if (!customerNameIndex.isReady()) {
+            // Index still being built; fall back to a (slow) bounded LIKE query
+            String escaped = escapeLike(customerName.trim());
+            String pattern = mode == CustomerNameIndex.MatchMode.PREFIX ? escaped + "%" : "%" + escaped + "%";
+            return orderRepository.findByCustomerName(pattern, limit).map(OrderService::mapToResponse);
+        }
+    
+        return findAllInOrder(customerNameIndex.search(customerName, mode, limit));
+    }
+    
+    public Flux<OrderResponse> searchByAmountRange(BigDecimal minAmount, BigDecimal maxAmount, int page, int size) {
+        log.debug("Fetching orders with amount between {} and {} (page {}, size {})", minAmount, maxAmount, page, size);
+    
+        try {
+            OrderService.validateAmountRange(minAmount, maxAmount);
+            OrderService.validatePage(page, size);
+        } catch (IllegalArgumentException ex) {
+            return Flux.error(ex);
+        }
+    
+        if (!amountIndex.isReady()) {
+            return orderRepository.findByAmountBetween(minAmount, maxAmount, (long) page * size, size)
+                    .map(OrderService::mapToResponse);
+        }
+    
+        long[] ids = amountIndex.findIds(AmountIndex.toCentsCeiling(minAmount), AmountIndex.toCentsFloor(maxAmount),
+                page * size, size);
+        return findAllInOrder(Arrays.stream(ids).boxed().collect(Collectors.toList()));
+    }
+    
+    public Mono<AmountStatsResponse> getAmountStats(BigDecimal minAmount, BigDecimal maxAmount) {
+        log.debug("Computing amount statistics between {} and {}", minAmount, maxAmount);
+    
+        try {
+            OrderService.validateAmountRange(minAmount, maxAmount);
+        } catch (IllegalArgumentException ex) {
+            return Mono.error(ex);
+        }
+    
+        if (!amountIndex.isReady()) {
+            // Percentiles need the index; the database only supplies the plain aggregates
+            return orderRepository.aggregateByAmountBetween(minAmount, maxAmount).map(OrderService::toAmountStats);
+        }
+        return Mono.fromSupplier(() -> OrderService.amountStatsFromIndex(amountIndex, minAmount, maxAmount));
+    }
+    
+    /**
+     * Update an order, optionally only if it is still at {@code expectedVersion}. Either way an
+     * update racing another one fails on the version column instead of overwriting it.
+     */
+    public Mono<OrderResponse> updateOrder(Long id, OrderRequest request, Long expectedVersion) {
+        log.debug("Updating order with ID: {}", id);
+    
+        Mono<OrderResponse> update = orderRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new OrderNotFoundException(id)))
+                .flatMap(order -> {
+                    OrderService.checkVersion(order, expectedVersion);
+                    order.setCustomerName(request.getCustomerName());
+                    order.setAmount(request.getAmount());
+                    return orderRepository.update(order);
+                })
+                .map(OrderService::mapToResponse);
+        return asWrite(orderRepository.inTransaction(update))
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        ex -> expectedVersion != null ? new OrderVersionMismatchException(id, expectedVersion) : ex)
+                .flatMap(response -> {
+                    log.info("Order updated successfully with ID: {}", response.getId());
+                    return afterCommit(() -> {
+                        cacheDispatcher.updated(response);
+                        eventPublisher.publishEvent(OrderChangeEvent.upserted(response));
+                    }).thenReturn(response);
+                });
+    }
+    
+    /**
+     * Delete an order, optionally only if it is still at {@code expectedVersion}
+     */
+    public Mono<Void> deleteOrder(Long id, Long expectedVersion) {
+        log.debug("Deleting order with ID: {}", id);
+    
+        Mono<Void> delete = orderRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new OrderNotFoundException(id)))
+                .flatMap(order -> {
+                    OrderService.checkVersion(order, expectedVersion);
+                    // The tombstone lets change feed consumers learn about the delete
+                    return orderRepository.delete(order, Order.now());
+                });
+        return asWrite(orderRepository.inTransaction(delete.thenReturn(id)))
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        ex -> expectedVersion != null ? new OrderVersionMismatchException(id, expectedVersion) : ex)
+                .flatMap(deletedId -> afterCommit(() -> {
+                    cacheDispatcher.deleted(deletedId);
+                    eventPublisher.publishEvent(OrderChangeEvent.deleted(deletedId));
+                    log.info("Order deleted successfully with ID: {} and removed from cache", deletedId);
+                }));
+    }
+    
+    /**
+     * Hold the change feed watermark from before the write stamps any order until it has committed
+     * or failed, so that no consumer's cursor moves past the changes it commits
+     */
+    private <T> Mono<T> asWrite(Mono<T> write) {
+        return Mono.using(changeFeed::openWrite, open -> write, OrderChangeFeed.OpenWrite::close);
+    }
+    
+    /**
+     * Run work that follows a committed write and makes blocking calls, off the event loop
+     */
+    private static Mono<Void> afterCommit(Runnable work) {
+        return Mono.fromRunnable(work)
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+    
+    /**
+     * Load orders by primary key with one IN query, keeping the order of the given IDs
+     */
+    private Flux<OrderResponse> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return orderRepository.findAllById(ids)
+                .collectMap(Order::getId, Function.identity())
+                .flatMapIterable(ordersById -> ids.stream()
+                        .map(ordersById::get)
+                        .filter(Objects::nonNull)
+                        .map(OrderService::mapToResponse)
+                        .toList());
+    }
+    
+    private OrderLookupResponse toLookupResponse(List<Long> ids, Map<Long, OrderJson> ordersById) {
+        ordersById.keySet().forEach(cacheService::recordAccess);
+        List<OrderJson> orders = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            OrderJson order = ordersById.get(id);
+            if (order != null) {
+                orders.add(order);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new OrderLookupResponse(orders, missingIds);
+    }
+    
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
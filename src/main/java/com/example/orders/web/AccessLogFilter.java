@@ -0,0 +1,61 @@
+package com.example.orders.web;
+
+import com.example.orders.config.AccessLogProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes one key=value line per request to the {@code orders.access} logger, replacing the
+ * per-request INFO lines of the controller and service. Successful requests are sampled;
+ * server errors and slow requests are always logged.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("orders.access");
+
+    private final AccessLogProperties properties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!properties.isEnabled() || !ACCESS_LOG.isInfoEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long durationNanos = System.nanoTime() - start;
+            int status = response.getStatus();
+            if (shouldLog(status, durationNanos)) {
+                ACCESS_LOG.info("method={} path={} query={} status={} durationMs={} client={}",
+                        request.getMethod(), request.getRequestURI(),
+                        request.getQueryString() == null ? "-" : request.getQueryString(), status,
+                        String.format("%.3f", durationNanos / 1e6), request.getRemoteAddr());
+            }
+        }
+    }
+
+    private boolean shouldLog(int status, long durationNanos) {
+        if (status >= 500 || durationNanos >= properties.getSlowThreshold().toNanos()) {
+            return true;
+        }
+        double sampleRate = properties.getSampleRate();
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.orders.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows the observed latency, after the gradient algorithm of Netflix's
+ * concurrency-limits. For every window of samples the average latency is compared with a baseline:
+ * while it stays within the tolerance the limit grows by about its square root, and when it rises
+ * above the limit shrinks in proportion. A window with failed requests cuts the limit
+ * multiplicatively, as in AIMD.
+ * <p>
+ * The baseline follows the lowest window latency seen. It rises quickly only while requests stay
+ * well below the limit, when higher latency must come from elsewhere, such as a slower database,
+ * so that a sustained overload does not become the new normal.
+ * <p>
+ * Callers state the share of the limit they may fill, so that lower priority requests are turned
+ * away while there is still room for higher priority ones. A window in which any request was
+ * turned away counts as one at the limit, even if only a small share of it was in flight, so that
+ * traffic of a single low priority can still raise the limit.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    static final int WINDOW_SAMPLES = 50;
+
+    // Fractions of the difference by which the baseline rises per window. Latency measured at the
+    // limit may be of our own making, so it moves the baseline only very slowly.
+    private static final double BASELINE_RISE_BELOW_LIMIT = 0.05;
+    private static final double BASELINE_RISE_AT_LIMIT = 0.001;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private volatile boolean windowRejected;
+
+    // Guarded by this
+    private double baselineRttNanos;
+    private long windowRttNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double rttTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Admit a request if fewer requests than the given share of the limit are in flight. Every
+     * admitted request must be followed by exactly one {@link #release}.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                windowRejected = true;
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Record the latency of an admitted request; dropped means it failed in a way that suggests
+     * overload, such as a server error or a timeout
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            windowRttNanos += rttNanos;
+            windowMaxInFlight = Math.max(windowMaxInFlight, current);
+            windowDropped |= dropped;
+            if (++windowSamples >= WINDOW_SAMPLES) {
+                updateLimit((double) windowRttNanos / windowSamples);
+                resetWindow();
+            }
+        }
+    }
+
+    /**
+     * Release an admitted request without taking its latency as a sample, for requests whose
+     * duration does not reflect the load, such as streamed responses that last as long as the client reads
+     */
+    public void releaseUnmeasured(boolean dropped) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            windowDropped |= dropped;
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void updateLimit(double shortRttNanos) {
+        double current = limit;
+        double next;
+        if (windowDropped) {
+            next = current * DROP_BACKOFF;
+        } else {
+            boolean belowLimit = !windowRejected && windowMaxInFlight < current / 2;
+            if (baselineRttNanos == 0 || shortRttNanos < baselineRttNanos) {
+                baselineRttNanos = shortRttNanos;
+            } else {
+                double rise = belowLimit ? BASELINE_RISE_BELOW_LIMIT : BASELINE_RISE_AT_LIMIT;
+                baselineRttNanos += (shortRttNanos - baselineRttNanos) * rise;
+            }
+            if (belowLimit) {
+                // The load, not the limit, kept concurrency low; latency says nothing about the limit
+                return;
+            }
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * baselineRttNanos / shortRttNanos));
+            double target = current * gradient + Math.sqrt(current);
+            next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private void resetWindow() {
+        windowRttNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+        windowRejected = false;
+    }
+}
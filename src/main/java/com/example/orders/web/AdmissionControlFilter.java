@@ -0,0 +1,193 @@
+package com.example.orders.web;
+
+import com.example.orders.config.AdmissionControlProperties;
+import com.example.orders.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Admission control in front of the order API. Requests are admitted while fewer than the
+ * adaptive concurrency limit are in flight and answered with 503 and Retry-After otherwise,
+ * before they take a database or Redis connection, so that under overload the admitted requests
+ * keep their latency instead of every request queueing behind the pools.
+ * <p>
+ * Lookups by ID, mostly answered from the cache, may fill the whole limit; writes and paged
+ * listings only part of it, and full listings, exports, searches, analytics and batch imports a
+ * smaller part still, so they are shed first. The change feed, health and cache management
+ * endpoints are not limited.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "admission-control", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String BASE_PATH = "/api/v1/orders";
+    private static final Pattern ORDER_BY_ID = Pattern.compile("/api/v1/orders/\\d+");
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> rejections = new EnumMap<>(Priority.class);
+    private final String retryAfterSeconds;
+    private final ObjectMapper objectMapper;
+
+    public AdmissionControlFilter(AdmissionControlProperties properties, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.limiter = new AdaptiveConcurrencyLimiter(properties.getInitialLimit(), properties.getMinLimit(),
+                properties.getMaxLimit(), properties.getRttTolerance());
+        this.shares.put(Priority.HIGH, 1.0);
+        this.shares.put(Priority.NORMAL, properties.getNormalShare());
+        this.shares.put(Priority.LOW, properties.getLowShare());
+        this.retryAfterSeconds = Long.toString(Math.max(1, properties.getRetryAfter().toSeconds()));
+        this.objectMapper = objectMapper;
+
+        Gauge.builder("orders.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit of the order API")
+                .register(meterRegistry);
+        Gauge.builder("orders.admission.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Admitted order API requests in flight")
+                .register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            rejections.put(priority, Counter.builder("orders.admission.rejected")
+                    .description("Order API requests shed with 503")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.startsWith(BASE_PATH)
+                || path.equals(BASE_PATH + "/health")
+                || path.startsWith(BASE_PATH + "/cache/")
+                || path.startsWith(BASE_PATH + "/changes");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = classify(request);
+        if (!limiter.tryAcquire(shares.get(priority))) {
+            rejections.get(priority).increment();
+            reject(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                // Streamed responses hold their permit until the stream is done, but last as long as
+                // the client keeps reading, so their duration is not a latency sample
+                request.getAsyncContext().addListener(new ReleasingListener(response));
+            } else {
+                limiter.release(System.nanoTime() - start, !completed || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    static Priority classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI();
+        if ("GET".equals(method)) {
+            if (ORDER_BY_ID.matcher(path).matches() || request.getParameter("ids") != null) {
+                return Priority.HIGH;
+            }
+            if (path.equals(BASE_PATH)) {
+                return request.getParameter("limit") != null ? Priority.NORMAL : Priority.LOW;
+            }
+            // Export, searches and analytics
+            return Priority.LOW;
+        }
+        if ("POST".equals(method)) {
+            if (path.equals(BASE_PATH + "/lookup")) {
+                return Priority.HIGH;
+            }
+            if (path.equals(BASE_PATH + "/batch")) {
+                return Priority.LOW;
+            }
+        }
+        return Priority.NORMAL;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message("The service is overloaded; retry later")
+                .path(request.getRequestURI())
+                .build();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private final class ReleasingListener implements AsyncListener {
+
+        private final HttpServletResponse response;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleasingListener(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(response.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release(boolean dropped) {
+            if (released.compareAndSet(false, true)) {
+                limiter.releaseUnmeasured(dropped);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.orders.web;
+
+import com.example.orders.datasource.DataSourceRouting;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Keeps a client's reads on the primary for a while after it wrote, so it does not read its own
+ * writes back from a replica that has not applied them yet. A committed write sets a cookie
+ * holding the end of that window; requests carrying an unexpired one are pinned to the primary.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE_NAME = "orders-primary-until";
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (primaryUntil(request) > System.currentTimeMillis()) {
+            DataSourceRouting.pinToPrimary();
+        }
+        DataSourceRouting.onWriteCommitted(() -> {
+            if (!response.isCommitted()) {
+                Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis() + window.toMillis()));
+                cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+                cookie.setHttpOnly(true);
+                cookie.setPath("/");
+                response.addCookie(cookie);
+            }
+        });
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            DataSourceRouting.clear();
+        }
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
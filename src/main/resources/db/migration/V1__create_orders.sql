@@ -0,0 +1,28 @@
+-- Pooled IDs: each sequence value reserves the 50 IDs ending at it (Order.id, allocationSize = 50)
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE orders (
+    id            BIGINT         NOT NULL PRIMARY KEY,
+    customer_name VARCHAR(100)   NOT NULL,
+    amount        NUMERIC(10, 2) NOT NULL,
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6),
+    version       BIGINT
+);
+
+-- Prefix search fallback while the in-memory index is building
+CREATE INDEX idx_orders_customer_name ON orders (customer_name);
+-- Amount range search and statistics fallback
+CREATE INDEX idx_orders_amount ON orders (amount);
+-- Analytics date ranges
+CREATE INDEX idx_orders_created_at ON orders (created_at);
+-- Change feed keyset pages
+CREATE INDEX idx_orders_updated_at_id ON orders (updated_at, id);
+
+CREATE TABLE order_tombstones (
+    order_id   BIGINT       NOT NULL PRIMARY KEY,
+    deleted_at TIMESTAMP(6) NOT NULL
+);
+
+-- Change feed keyset pages and retention pruning
+CREATE INDEX idx_order_tombstones_deleted_at_id ON order_tombstones (deleted_at, order_id);
@@ -0,0 +1,196 @@
+package com.example.orders.perf;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load generator. Each simulated client runs on its own virtual thread and
+ * issues requests back to back, so thousands of concurrent clients cost almost nothing on the
+ * generator side. Latencies are recorded after the warm-up period and reported as throughput
+ * and percentiles.
+ * <p>
+ * Options (all optional):
+ * <pre>
+ *   --url http://localhost:8080       target base URL
+ *   --paths /api/v1/orders/{id}       comma-separated request paths; {id} is replaced per request
+ *   --ids 1-5                         inclusive range the {id} placeholder is drawn from
+ *   --clients 1000                    concurrent clients
+ *   --warmup 10s                      time before latencies are recorded
+ *   --duration 30s                    measured time
+ *   --label baseline                  name printed with the results
+ *   --honor-retry-after true          a client answered 503 with Retry-After waits that long
+ * </pre>
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String baseUrl = options.getOrDefault("url", "http://localhost:8080");
+        String[] paths = options.getOrDefault("paths", "/api/v1/orders/{id}").split(",");
+        String[] idRange = options.getOrDefault("ids", "1-5").split("-");
+        long minId = Long.parseLong(idRange[0]);
+        long maxId = Long.parseLong(idRange[idRange.length - 1]);
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "10s"));
+        Duration duration = parseDuration(options.getOrDefault("duration", "30s"));
+        String label = options.getOrDefault("label", "run");
+        boolean honorRetryAfter = Boolean.parseBoolean(options.getOrDefault("honor-retry-after", "true"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        long startNanos = System.nanoTime();
+        long recordFromNanos = startNanos + warmup.toNanos();
+        long stopNanos = recordFromNanos + duration.toNanos();
+        LongAdder errors = new LongAdder();
+        Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        long[][] latenciesByClient = new long[clients][];
+        long[][] servedLatenciesByClient = new long[clients][];
+
+        System.out.printf("[%s] %d clients against %s%s, warm-up %s, measuring %s%n",
+                label, clients, baseUrl, String.join(",", paths), warmup, duration);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int clientIndex = c;
+                executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    long[] served = new long[1024];
+                    int count = 0;
+                    int servedCount = 0;
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (true) {
+                        long now = System.nanoTime();
+                        if (now >= stopNanos) {
+                            break;
+                        }
+                        String path = paths[random.nextInt(paths.length)]
+                                .replace("{id}", Long.toString(random.nextLong(minId, maxId + 1)));
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                                .timeout(Duration.ofSeconds(30))
+                                .GET()
+                                .build();
+                        int status;
+                        long retryAfterSeconds = 0;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            status = response.statusCode();
+                            if (status == 503 && honorRetryAfter) {
+                                retryAfterSeconds = response.headers().firstValueAsLong("Retry-After").orElse(0);
+                            }
+                        } catch (Exception ex) {
+                            status = -1;
+                        }
+                        long end = System.nanoTime();
+                        if (retryAfterSeconds > 0) {
+                            try {
+                                // Spread the retries so shed clients do not come back in lockstep
+                                Thread.sleep(random.nextLong(retryAfterSeconds * 500, retryAfterSeconds * 1500));
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                                break;
+                            }
+                        }
+                        if (now < recordFromNanos) {
+                            continue;
+                        }
+                        if (status < 200 || status >= 400) {
+                            errors.increment();
+                        }
+                        statusCounts.computeIfAbsent(status, key -> new LongAdder()).increment();
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+                        }
+                        latencies[count++] = end - now;
+                        if (status != 503 && status != -1) {
+                            if (servedCount == served.length) {
+                                served = Arrays.copyOf(served, served.length * 2);
+                            }
+                            served[servedCount++] = end - now;
+                        }
+                    }
+                    // Published to the main thread by the executor's close()
+                    latenciesByClient[clientIndex] = Arrays.copyOf(latencies, count);
+                    servedLatenciesByClient[clientIndex] = Arrays.copyOf(served, servedCount);
+                    return null;
+                });
+            }
+        }
+
+        long[] all = merge(latenciesByClient);
+        long[] served = merge(servedLatenciesByClient);
+        long total = all.length;
+
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("[%s] requests=%d errors=%d throughput=%.0f req/s%n",
+                label, total, errors.sum(), total / seconds);
+        printLatencies(label, "latency ms", all);
+        // Shed requests (503) answer in microseconds and would flatter the percentiles above
+        System.out.printf("[%s] served=%d (%.0f req/s) shed=%d%n",
+                label, served.length, served.length / seconds, statusCounts.getOrDefault(503, new LongAdder()).sum());
+        printLatencies(label, "served latency ms", served);
+        System.out.printf("[%s] status codes: %s%n", label, statusCounts);
+    }
+
+    private static long[] merge(long[][] latenciesByClient) {
+        return Arrays.stream(latenciesByClient)
+                .flatMapToLong(Arrays::stream)
+                .sorted()
+                .toArray();
+    }
+
+    private static void printLatencies(String label, String name, long[] sorted) {
+        System.out.printf("[%s] %s: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                label, name, percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, rank)] / 1e6;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option but got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.orders.cache;
+
+import com.example.orders.config.RedisConfig;
+import com.example.orders.dto.OrderJson;
+import com.example.orders.dto.OrderResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderJsonRedisSerializerTest {
+
+    private final OrderResponseRedisSerializer binary = new OrderResponseRedisSerializer(RedisConfig.jsonValueSerializer());
+    private final OrderJsonRedisSerializer serializer = new OrderJsonRedisSerializer(binary);
+
+    @Test
+    void roundTripsPreRenderedJson() {
+        byte[] json = "{\"id\":42,\"customerName\":\"Zoë Smith\",\"version\":3}".getBytes(StandardCharsets.UTF_8);
+
+        byte[] bytes = serializer.serialize(new OrderJson(42L, 3L, json));
+
+        assertThat(bytes[0]).isEqualTo(OrderJsonRedisSerializer.MAGIC);
+        OrderJson decoded = (OrderJson) serializer.deserialize(bytes);
+        assertThat(decoded.getId()).isEqualTo(42L);
+        assertThat(decoded.getVersion()).isEqualTo(3L);
+        assertThat(decoded.getJson()).isEqualTo(json);
+        assertThat(((OrderJson) serializer.deserialize(serializer.serialize(new OrderJson(7L, null, json)))).getVersion())
+                .isNull();
+    }
+
+    @Test
+    void readsOrdersCachedAsOrderResponse() {
+        OrderResponse order = new OrderResponse();
+        order.setId(3L);
+        order.setCustomerName("Bob Johnson");
+        order.setAmount(new BigDecimal("75.25"));
+        order.setCreatedAt(LocalDateTime.now());
+
+        assertThat(serializer.deserialize(binary.serialize(order))).isEqualTo(order);
+        assertThat(serializer.deserialize(serializer.serialize(order))).isEqualTo(order);
+    }
+}
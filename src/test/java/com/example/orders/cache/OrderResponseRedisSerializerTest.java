@@ -0,0 +1,70 @@
+package com.example.orders.cache;
+
+import com.example.orders.config.RedisConfig;
+import com.example.orders.dto.OrderResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderResponseRedisSerializerTest {
+
+    private final RedisSerializer<Object> json = RedisConfig.jsonValueSerializer();
+    private final OrderResponseRedisSerializer serializer = new OrderResponseRedisSerializer(json);
+
+    @Test
+    void roundTripsOrdersInBinaryForm() {
+        OrderResponse order = order(42L, "Zoë Smith", new BigDecimal("-1299.990"),
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999));
+
+        byte[] bytes = serializer.serialize(order);
+
+        assertThat(bytes[0]).isEqualTo(OrderResponseRedisSerializer.MAGIC);
+        assertThat(bytes.length).isLessThan(json.serialize(order).length / 3);
+        OrderResponse decoded = (OrderResponse) serializer.deserialize(bytes);
+        assertThat(decoded).isEqualTo(order);
+        assertThat(decoded.getAmount().scale()).isEqualTo(3);
+    }
+
+    @Test
+    void keepsNullFieldsNull() {
+        OrderResponse order = new OrderResponse();
+        order.setId(7L);
+
+        assertThat(serializer.deserialize(serializer.serialize(order))).isEqualTo(order);
+    }
+
+    @Test
+    void readsEntriesWrittenAsJson() {
+        OrderResponse order = order(3L, "Bob Johnson", new BigDecimal("75.25"), LocalDateTime.now());
+
+        assertThat(serializer.deserialize(json.serialize(order))).isEqualTo(order);
+    }
+
+    @Test
+    void fallsBackToJsonForOtherValues() {
+        OrderResponse huge = order(1L, "Big Spender", new BigDecimal("123456789012345678901234567890.12"),
+                LocalDateTime.now());
+        List<String> other = new ArrayList<>(List.of("a", "b"));
+
+        assertThat(serializer.serialize(huge)[0]).isEqualTo((byte) '{');
+        assertThat(serializer.deserialize(serializer.serialize(huge))).isEqualTo(huge);
+        assertThat(serializer.deserialize(serializer.serialize(other))).isEqualTo(other);
+    }
+
+    private static OrderResponse order(Long id, String customerName, BigDecimal amount, LocalDateTime timestamp) {
+        OrderResponse order = new OrderResponse();
+        order.setId(id);
+        order.setCustomerName(customerName);
+        order.setAmount(amount);
+        order.setCreatedAt(timestamp);
+        order.setUpdatedAt(timestamp.plusSeconds(90));
+        order.setVersion(3L);
+        return order;
+    }
+}
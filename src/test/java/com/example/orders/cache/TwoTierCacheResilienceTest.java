@@ -0,0 +1,134 @@
+package com.example.orders.cache;
+
+import com.example.orders.config.OrderCacheProperties;
+import com.example.orders.config.RedisConfig;
+import com.example.orders.support.FakeRedisServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the two-tier cache against a real Lettuce client talking to {@link FakeRedisServer}, which
+ * injects the failures and latency of a Redis outage or brownout
+ */
+class TwoTierCacheResilienceTest {
+
+    private static final Duration COMMAND_TIMEOUT = Duration.ofMillis(100);
+
+    private FakeRedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+    private Cache redisCache;
+    private CircuitBreaker circuitBreaker;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redis = new FakeRedisServer();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("127.0.0.1", redis.getPort()),
+                LettuceClientConfiguration.builder().commandTimeout(COMMAND_TIMEOUT).build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair
+                                .fromSerializer(RedisConfig.jsonValueSerializer())))
+                .initialCacheNames(Set.of("orders"))
+                .build();
+        redisCacheManager.initializeCaches();
+        redisCache = redisCacheManager.getCache("orders");
+
+        OrderCacheProperties.CircuitBreaker properties = new OrderCacheProperties.CircuitBreaker();
+        properties.setSlidingWindowSize(4);
+        properties.setMinimumNumberOfCalls(4);
+        properties.setWaitInOpenState(Duration.ofMillis(200));
+        properties.setPermittedCallsInHalfOpenState(2);
+        circuitBreaker = CircuitBreaker.of("redis", RedisConfig.circuitBreakerConfig(properties));
+
+        cache = new TwoTierCache("orders", redisCache, 100, Duration.ofMinutes(2),
+                mock(CacheInvalidationPublisher.class), Duration.ofMinutes(30), 0.0, Runnable::run,
+                circuitBreaker, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionFactory.destroy();
+        redis.close();
+    }
+
+    @Test
+    void failingRedisFallsBackToTheLoaderAndOpensTheBreaker() {
+        redis.setFailing(true);
+
+        // Each miss costs a failed GET and a failed SET until the breaker has seen enough of them
+        assertThat(cache.get(1L, () -> "db-1")).isEqualTo("db-1");
+        assertThat(cache.get(2L, () -> "db-2")).isEqualTo("db-2");
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThat(cache.get(3L, () -> "db-3")).isEqualTo("db-3");
+        assertThat(circuitBreaker.getMetrics().getNumberOfNotPermittedCalls()).isEqualTo(2);
+        assertThat(cache.getRedisStatistics().getErrors()).isEqualTo(4);
+        // The local tier keeps serving what was loaded during the outage
+        assertThat(cache.get(1L, () -> "reloaded")).isEqualTo("db-1");
+    }
+
+    @Test
+    void slowRedisCostsOneCommandTimeoutPerCall() {
+        redis.setLatency(Duration.ofSeconds(2));
+
+        long start = System.nanoTime();
+        assertThat(cache.get(1L, () -> "db-1")).isEqualTo("db-1");
+        assertThat(cache.get(2L, () -> "db-2")).isEqualTo("db-2");
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(2));
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void recoversAndEvictsEntriesWhoseWritesWereDropped() throws Exception {
+        cache.put(1L, "v1");
+        assertThat(redisCache.get(1L).get()).isEqualTo("v1");
+
+        redis.setFailing(true);
+        cache.put(1L, "v2");
+        cache.put(2L, "v2");
+        assertThat(cache.getPendingRedisEvictions()).isEqualTo(2);
+        cache.evict(3L);
+        cache.evict(4L);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Redis is back but still holds v1 for key 1, which must not be read until it is evicted
+        redis.setFailing(false);
+        cache.invalidateLocal("1");
+        assertThat(cache.get(1L)).isNull();
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (circuitBreaker.getState() != CircuitBreaker.State.HALF_OPEN && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        // Trial calls succeed, the breaker closes and the dropped writes are repaired
+        cache.get(10L);
+        cache.get(11L);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(cache.getPendingRedisEvictions()).isZero();
+        assertThat(redisCache.get(1L)).isNull();
+        assertThat(cache.get(1L, () -> "v2")).isEqualTo("v2");
+        assertThat(redisCache.get(1L).get()).isEqualTo("v2");
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.orders.cache;
+
+import com.example.orders.dto.CacheLoadStats;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TwoTierCacheTest {
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        TwoTierCache cache = cache(0.0);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 16;
+
+        List<Future<Object>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get(1L, () -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "order-1";
+                })));
+            }
+            // Let every caller queue up behind the first loader before it finishes
+            while (cache.getStatistics().getLoads().getCoalescedLoads() < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<Object> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("order-1");
+            }
+        }
+
+        CacheLoadStats stats = cache.getStatistics().getLoads();
+        assertThat(loads).hasValue(1);
+        assertThat(stats.getLoads()).isEqualTo(1);
+        assertThat(stats.getCoalescedLoads()).isEqualTo(callers - 1);
+    }
+
+    @Test
+    void refreshesLoadedKeysAheadOfExpiry() {
+        // A huge beta makes the XFetch rule fire on the first hit after a load
+        TwoTierCache eager = cache(1e12);
+        AtomicInteger loads = new AtomicInteger();
+
+        eager.get(1L, () -> "v" + loads.incrementAndGet());
+        Object hit = eager.get(1L, () -> "v" + loads.incrementAndGet());
+
+        assertThat(hit).isEqualTo("v1");
+        assertThat(loads).hasValue(2);
+        assertThat(eager.get(1L, String.class)).isEqualTo("v2");
+        assertThat(eager.getStatistics().getLoads().getRefreshes()).isGreaterThanOrEqualTo(1);
+
+        TwoTierCache disabled = cache(0.0);
+        disabled.get(1L, () -> "v" + loads.incrementAndGet());
+        disabled.get(1L, () -> "v" + loads.incrementAndGet());
+        assertThat(disabled.getStatistics().getLoads().getRefreshes()).isZero();
+    }
+
+    @Test
+    void loadDoesNotStoreAValueReadBeforeAnEvict() {
+        ConcurrentMapCache redis = new ConcurrentMapCache("orders", false);
+        TwoTierCache cache = cache(redis, 0.0);
+
+        Object loaded = cache.get(1L, () -> {
+            // The order is deleted and evicted after the loader read it
+            cache.evict(1L);
+            return "deleted-order";
+        });
+
+        assertThat(loaded).isEqualTo("deleted-order");
+        assertThat(cache.get(1L)).isNull();
+        assertThat(redis.get(1L)).isNull();
+        assertThat(cache.get(1L, () -> "reloaded")).isEqualTo("reloaded");
+    }
+
+    @Test
+    void loadUndoesItsStoreWhenAPutRacesWithIt() {
+        AtomicReference<TwoTierCache> self = new AtomicReference<>();
+        ConcurrentMapCache redis = new ConcurrentMapCache("orders", false) {
+            @Override
+            public void put(Object key, Object value) {
+                if ("stale".equals(value)) {
+                    // An update is written to both tiers just before the load's store lands over it
+                    self.get().put(key, "updated");
+                }
+                super.put(key, value);
+            }
+        };
+        TwoTierCache cache = cache(redis, 0.0);
+        self.set(cache);
+
+        cache.get(1L, () -> "stale");
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(redis.get(1L)).isNull();
+    }
+
+    @Test
+    void bulkLoadKeepsOnlyKeysNotWrittenSinceItsGenerationsWereRead() {
+        TwoTierCache cache = cache(0.0);
+        Map<Long, Long> generations = cache.getWriteGenerations(List.of(1L, 2L));
+
+        // Order 2 is deleted after the bulk load read it
+        cache.evict(2L);
+        Map<Long, String> kept = cache.putAllLocal(Map.of(1L, "order-1", 2L, "deleted-order"), generations);
+
+        assertThat(kept).containsOnlyKeys(1L);
+        assertThat(cache.get(1L, String.class)).isEqualTo("order-1");
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.getKeysWrittenSince(List.of(1L, 2L), generations)).containsExactly(2L);
+
+        cache.invalidateLocal("1");
+        assertThat(cache.getKeysWrittenSince(List.of(1L), generations)).containsExactly(1L);
+    }
+
+    private static TwoTierCache cache(double refreshBeta) {
+        return cache(new ConcurrentMapCache("orders", false), refreshBeta);
+    }
+
+    private static TwoTierCache cache(ConcurrentMapCache redis, double refreshBeta) {
+        return new TwoTierCache("orders", redis, 100, Duration.ofMinutes(2),
+                mock(CacheInvalidationPublisher.class), Duration.ofMinutes(30), refreshBeta, Runnable::run,
+                CircuitBreaker.ofDefaults("redis"), 100);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.orders.controller;
+
+import com.example.orders.dto.OrderJson;
+import com.example.orders.dto.OrderRequest;
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.exception.GlobalExceptionHandler;
+import com.example.orders.exception.OrderVersionMismatchException;
+import com.example.orders.service.CacheService;
+import com.example.orders.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderControllerTest {
+
+    private static final String ORDER = "{\"customerName\":\"Jane Smith\",\"amount\":10.00}";
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new OrderController(orderService, mock(CacheService.class), new ObjectMapper()))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void ifMatchNamesTheExpectedVersion() {
+        assertThat(OrderController.expectedVersion(null)).isNull();
+        assertThat(OrderController.expectedVersion(" ")).isNull();
+        assertThat(OrderController.expectedVersion("*")).isNull();
+        assertThat(OrderController.expectedVersion("\"3\"")).isEqualTo(3L);
+        // Weak and foreign tags never match strongly
+        assertThat(OrderController.expectedVersion("W/\"3\"")).isEqualTo(-1L);
+        assertThat(OrderController.expectedVersion("\"abc\"")).isEqualTo(-1L);
+        assertThat(OrderController.expectedVersion("\"\"")).isEqualTo(-1L);
+    }
+
+    @Test
+    void staleIfMatchFailsThePreconditionAndAConcurrentWriteWithoutOneConflicts() throws Exception {
+        when(orderService.updateOrder(eq(1L), any(OrderRequest.class), eq(3L)))
+                .thenThrow(new OrderVersionMismatchException(1L, 3L));
+        mockMvc.perform(put("/api/v1/orders/1").header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(ORDER))
+                .andExpect(status().isPreconditionFailed());
+
+        when(orderService.updateOrder(eq(1L), any(OrderRequest.class), isNull()))
+                .thenThrow(new OptimisticLockingFailureException("Row was updated by another transaction"));
+        mockMvc.perform(put("/api/v1/orders/1").contentType(MediaType.APPLICATION_JSON).content(ORDER))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void ifMatchAnyUpdatesWhateverTheVersion() throws Exception {
+        OrderResponse updated = new OrderResponse();
+        updated.setId(1L);
+        updated.setAmount(new BigDecimal("10.00"));
+        updated.setVersion(4L);
+        when(orderService.updateOrder(eq(1L), any(OrderRequest.class), isNull())).thenReturn(updated);
+
+        mockMvc.perform(put("/api/v1/orders/1").header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON).content(ORDER))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+        verify(orderService).updateOrder(eq(1L), any(OrderRequest.class), isNull());
+    }
+
+    @Test
+    void ifNoneMatchOfTheCurrentVersionIsNotModified() throws Exception {
+        when(orderService.getOrderById(1L)).thenReturn(new OrderJson(1L, 3L, "{\"id\":1}".getBytes()));
+
+        mockMvc.perform(get("/api/v1/orders/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/api/v1/orders/1").header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string("{\"id\":1}"));
+    }
+}
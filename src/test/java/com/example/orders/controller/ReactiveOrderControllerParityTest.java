@@ -0,0 +1,162 @@
+package com.example.orders.controller;
+
+import com.example.orders.config.ChangeFeedProperties;
+import com.example.orders.dto.OrderAnalyticsResponse;
+import com.example.orders.dto.OrderChange;
+import com.example.orders.dto.OrderChangesResponse;
+import com.example.orders.dto.OrderGroupStats;
+import com.example.orders.dto.OrderJson;
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.exception.GlobalExceptionHandler;
+import com.example.orders.exception.OrderNotFoundException;
+import com.example.orders.service.CacheService;
+import com.example.orders.service.OrderAnalyticsService;
+import com.example.orders.service.OrderChangeFeed;
+import com.example.orders.service.OrderService;
+import com.example.orders.service.ReactiveCacheService;
+import com.example.orders.service.ReactiveOrderService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Sends the same requests to the servlet controllers and their WebFlux counterparts, backed by the
+ * same data, and expects the same status, ETag and body from both
+ */
+class ReactiveOrderControllerParityTest {
+
+    private static final LocalDateTime CHANGED_AT = LocalDateTime.of(2024, 5, 1, 12, 30);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OrderService orderService = mock(OrderService.class);
+    private final ReactiveOrderService reactiveOrderService = mock(ReactiveOrderService.class);
+    private final OrderChangeFeed changeFeed = mock(OrderChangeFeed.class);
+    private final OrderAnalyticsService analyticsService = mock(OrderAnalyticsService.class);
+    private final ChangeFeedProperties changeFeedProperties = new ChangeFeedProperties();
+
+    private final MockMvc servlet = MockMvcBuilders
+            .standaloneSetup(new OrderController(orderService, mock(CacheService.class), objectMapper),
+                    new OrderChangeFeedController(changeFeed, changeFeedProperties),
+                    new OrderAnalyticsController(analyticsService))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            // Duration parameters such as wait=30s, as the application registers them on both stacks
+            .setConversionService(new ApplicationConversionService())
+            .build();
+    private final WebTestClient reactive = WebTestClient
+            .bindToController(new ReactiveOrderController(reactiveOrderService, mock(ReactiveCacheService.class), objectMapper),
+                    new ReactiveOrderChangeFeedController(changeFeed, changeFeedProperties),
+                    new ReactiveOrderAnalyticsController(analyticsService))
+            .controllerAdvice(new GlobalExceptionHandler())
+            .formatters(ApplicationConversionService::addApplicationConverters)
+            .build();
+
+    @Test
+    void ordersByIdMatch() throws Exception {
+        OrderJson order = new OrderJson(7L, 2L, "{\"id\":7,\"version\":2}".getBytes());
+        when(orderService.getOrderById(7L)).thenReturn(order);
+        when(reactiveOrderService.getOrderById(7L)).thenReturn(Mono.just(order));
+        when(orderService.getOrderById(8L)).thenThrow(new OrderNotFoundException(8L));
+        when(reactiveOrderService.getOrderById(8L)).thenReturn(Mono.error(new OrderNotFoundException(8L)));
+
+        assertSameResponse("/api/v1/orders/7", null);
+        assertSameResponse("/api/v1/orders/7", "\"2\"");
+        assertSameResponse("/api/v1/orders/8", null);
+    }
+
+    @Test
+    void changeFeedIsServedAndMatches() throws Exception {
+        OrderResponse order = new OrderResponse();
+        order.setId(7L);
+        order.setCustomerName("Jane Smith");
+        order.setAmount(new BigDecimal("10.00"));
+        order.setUpdatedAt(CHANGED_AT);
+        order.setVersion(2L);
+        OrderChangesResponse page = new OrderChangesResponse(
+                List.of(OrderChange.upserted(order), OrderChange.deleted(9L, CHANGED_AT)), "1714566600000000-9", false);
+        when(changeFeed.poll(null, 2, Duration.ZERO)).thenReturn(CompletableFuture.completedFuture(page));
+        when(changeFeed.poll("not-a-cursor", 100, Duration.ZERO))
+                .thenThrow(new IllegalArgumentException("Malformed change feed cursor: not-a-cursor"));
+
+        JsonNode body = assertSameResponse("/api/v1/orders/changes?limit=2", null);
+        assertThat(body.get("changes")).hasSize(2);
+        assertSameResponse("/api/v1/orders/changes?after=not-a-cursor", null);
+    }
+
+    @Test
+    void analyticsAreServedAndMatch() throws Exception {
+        OrderAnalyticsResponse summary = OrderAnalyticsResponse.builder()
+                .groupBy("none")
+                .generatedAt(CHANGED_AT)
+                .groups(List.of(OrderGroupStats.builder().group("all").count(2).sum(new BigDecimal("30.00")).build()))
+                .build();
+        when(analyticsService.getSummary(null, null)).thenReturn(summary);
+
+        JsonNode body = assertSameResponse("/api/v1/orders/analytics/summary", null);
+        assertThat(body.get("groups").get(0).get("count").asLong()).isEqualTo(2);
+    }
+
+    /**
+     * Returns the body both stacks answered with; error timestamps are left out of the comparison
+     */
+    private JsonNode assertSameResponse(String uri, String ifNoneMatch) throws Exception {
+        var request = get(uri);
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MvcResult result = servlet.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = servlet.perform(asyncDispatch(result)).andReturn();
+        }
+
+        EntityExchangeResult<byte[]> reactiveResult = reactive.get().uri(uri)
+                .headers(headers -> {
+                    if (ifNoneMatch != null) {
+                        headers.setIfNoneMatch(ifNoneMatch);
+                    }
+                })
+                .exchange()
+                .expectBody()
+                .returnResult();
+
+        assertThat(reactiveResult.getStatus().value()).as(uri).isEqualTo(result.getResponse().getStatus());
+        assertThat(reactiveResult.getResponseHeaders().getETag()).as(uri)
+                .isEqualTo(result.getResponse().getHeader(HttpHeaders.ETAG));
+        byte[] servletBody = result.getResponse().getContentAsByteArray();
+        byte[] reactiveBody = reactiveResult.getResponseBody() == null ? new byte[0] : reactiveResult.getResponseBody();
+        if (servletBody.length == 0) {
+            assertThat(reactiveBody).as(uri).isEmpty();
+            return null;
+        }
+        JsonNode expected = withoutTimestamp(objectMapper.readTree(servletBody));
+        assertThat(withoutTimestamp(objectMapper.readTree(reactiveBody))).as(uri).isEqualTo(expected);
+        return expected;
+    }
+
+    private static JsonNode withoutTimestamp(JsonNode body) {
+        if (body instanceof ObjectNode object && object.has("status")) {
+            object.remove("timestamp");
+        }
+        return body;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.orders.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final List<Connection> keepAlive = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (Connection connection : keepAlive) {
+            connection.close();
+        }
+        DataSourceRouting.clear();
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplicasInTurnAndWritesToThePrimary() throws Exception {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", node("replica1"));
+        replicas.put("replica-2", node("replica2"));
+        Routing routing = new Routing(node("primary"), replicas);
+
+        assertThat(List.of(routing.read(), routing.read(), routing.read(), routing.read()))
+                .containsExactly("replica1", "replica2", "replica1", "replica2");
+        assertThat(routing.write()).isEqualTo("primary");
+        assertThat(DataSourceRouting.onPrimary(routing::read)).isEqualTo("primary");
+    }
+
+    @Test
+    void ejectsUnreachableReplicasAndPinsTheThreadAfterAWrite() throws Exception {
+        JdbcDataSource down = new JdbcDataSource();
+        down.setURL("jdbc:h2:tcp://localhost:1/mem:down");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("down", down);
+        replicas.put("replica", node("replica"));
+        Routing routing = new Routing(node("primary"), replicas);
+
+        assertThat(List.of(routing.read(), routing.read())).containsExactly("replica", "replica");
+        assertThat(routing.dataSource.getReplicas()).extracting(ReplicaRoutingDataSource.Replica::isHealthy)
+                .containsExactly(false, true);
+
+        List<String> notified = new ArrayList<>();
+        DataSourceRouting.onWriteCommitted(() -> notified.add("write"));
+        routing.write();
+        assertThat(notified).containsExactly("write");
+        assertThat(routing.read()).isEqualTo("primary");
+    }
+
+    private DataSource node(String name) throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + System.nanoTime());
+        Connection connection = dataSource.getConnection();
+        keepAlive.add(connection);
+        connection.createStatement().execute("create table node (name varchar(20))");
+        connection.createStatement().execute("insert into node values ('" + name + "')");
+        return dataSource;
+    }
+
+    private static final class Routing {
+
+        private final ReplicaRoutingDataSource dataSource;
+        private final JdbcTemplate jdbc;
+        private final TransactionTemplate readOnly;
+        private final TransactionTemplate readWrite;
+
+        private Routing(DataSource primary, Map<String, DataSource> replicas) {
+            dataSource = new ReplicaRoutingDataSource(primary, replicas);
+            LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(dataSource);
+            jdbc = new JdbcTemplate(proxy);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(proxy);
+            readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readWrite = new TransactionTemplate(transactionManager);
+        }
+
+        private String read() {
+            return readOnly.execute(status -> jdbc.queryForObject("select name from node", String.class));
+        }
+
+        private String write() {
+            return readWrite.execute(status -> jdbc.queryForObject("select name from node", String.class));
+        }
+    }
+}
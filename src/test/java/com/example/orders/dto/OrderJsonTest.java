@@ -0,0 +1,48 @@
+package com.example.orders.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderJsonTest {
+
+    // Configured like spring.jackson in application.yml
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    void writesTheSameBytesAsTheOrderResponse() throws Exception {
+        OrderResponse first = order(1L, "Zoë \"Quoted\" Smith", LocalDateTime.of(2024, 1, 15, 10, 30, 45, 123_456_000));
+        OrderResponse second = order(2L, "Bob Johnson", null);
+
+        OrderLookupResponse rendered = new OrderLookupResponse(
+                List.of(OrderJson.render(objectMapper, first), OrderJson.render(objectMapper, second)), List.of(9L));
+
+        assertThat(OrderJson.render(objectMapper, first).getJson()).isEqualTo(objectMapper.writeValueAsBytes(first));
+        assertThat(objectMapper.writeValueAsString(rendered)).isEqualTo(
+                objectMapper.writeValueAsString(new PojoLookupResponse(List.of(first, second), List.of(9L))));
+    }
+
+    private record PojoLookupResponse(List<OrderResponse> orders, List<Long> missingIds) {
+    }
+
+    private static OrderResponse order(Long id, String customerName, LocalDateTime createdAt) {
+        OrderResponse order = new OrderResponse();
+        order.setId(id);
+        order.setCustomerName(customerName);
+        order.setAmount(new BigDecimal("299.90"));
+        order.setCreatedAt(createdAt);
+        order.setVersion(0L);
+        return order;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.orders.index;
+
+import com.example.orders.dto.OrderResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AmountIndexTest {
+
+    @Test
+    void answersRangeQueriesLikeABruteForceScan() {
+        AmountIndex index = new AmountIndex();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int step = 0; step < 5000; step++) {
+            long id = random.nextInt(2000);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                expected.remove(id);
+            } else {
+                long cents = random.nextInt(100_000);
+                index.index(order(id, cents));
+                expected.put(id, cents);
+            }
+        }
+
+        for (int query = 0; query < 200; query++) {
+            long min = random.nextInt(100_000);
+            long max = min + random.nextInt(30_000);
+            List<Map.Entry<Long, Long>> matches = expected.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= min && entry.getValue() <= max)
+                    .sorted(Map.Entry.<Long, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                    .toList();
+
+            assertThat(index.count(min, max)).isEqualTo(matches.size());
+
+            AmountIndex.RangeStats stats = index.stats(min, max, 0.5, 1.0);
+            assertThat(stats.count()).isEqualTo(matches.size());
+            assertThat(stats.sum()).isEqualTo(matches.stream().mapToLong(Map.Entry::getValue).sum());
+            if (!matches.isEmpty()) {
+                assertThat(stats.min()).isEqualTo(matches.get(0).getValue());
+                assertThat(stats.max()).isEqualTo(matches.get(matches.size() - 1).getValue());
+                int medianRank = (int) Math.ceil(0.5 * matches.size()) - 1;
+                assertThat(stats.percentiles()[0]).isEqualTo(matches.get(medianRank).getValue());
+                assertThat(stats.percentiles()[1]).isEqualTo(stats.max());
+            }
+
+            int offset = random.nextInt(5);
+            long[] page = index.findIds(min, max, offset, 10);
+            long[] expectedPage = matches.stream()
+                    .skip(offset)
+                    .limit(10)
+                    .mapToLong(Map.Entry::getKey)
+                    .toArray();
+            assertThat(page).containsExactly(expectedPage);
+        }
+    }
+
+    @Test
+    void updatingAnOrderMovesItToItsNewAmount() {
+        AmountIndex index = new AmountIndex();
+        index.index(order(1L, 1000));
+        index.index(order(2L, 2000));
+        index.index(order(1L, 3000));
+
+        assertThat(index.findIds(0, Long.MAX_VALUE, 0, 10)).containsExactly(2L, 1L);
+        assertThat(index.count(500, 1500)).isZero();
+    }
+
+    @Test
+    void convertsAmountsToCentsWithoutBigDecimalsInTheIndex() {
+        assertThat(AmountIndex.toCents(new BigDecimal("150.50"))).isEqualTo(15050L);
+        assertThat(AmountIndex.toCentsCeiling(new BigDecimal("10.001"))).isEqualTo(1001L);
+        assertThat(AmountIndex.toCentsFloor(new BigDecimal("10.009"))).isEqualTo(1000L);
+        assertThat(AmountIndex.fromCents(7525L)).isEqualByComparingTo("75.25");
+    }
+
+    private static OrderResponse order(long id, long cents) {
+        OrderResponse order = new OrderResponse();
+        order.setId(id);
+        order.setAmount(AmountIndex.fromCents(cents));
+        return order;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.orders.index;
+
+import com.example.orders.dto.OrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerNameIndexTest {
+
+    private CustomerNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CustomerNameIndex();
+        index.index(order(1L, "John Doe"));
+        index.index(order(2L, "Jane Smith"));
+        index.index(order(3L, "Bob Johnson"));
+        index.index(order(4L, "john doe"));
+        index.index(order(5L, "Alice Brown"));
+    }
+
+    @Test
+    void substringSearchIsCaseInsensitiveAndOrderedByNameThenId() {
+        assertThat(index.search("JOHN", CustomerNameIndex.MatchMode.SUBSTRING, 10)).containsExactly(3L, 1L, 4L);
+    }
+
+    @Test
+    void substringSearchVerifiesTrigramCandidates() {
+        // "ohn do" shares trigrams with "john doe" only when they are adjacent
+        assertThat(index.search("ohn do", CustomerNameIndex.MatchMode.SUBSTRING, 10)).containsExactly(1L, 4L);
+        assertThat(index.search("doe john", CustomerNameIndex.MatchMode.SUBSTRING, 10)).isEmpty();
+    }
+
+    @Test
+    void shortQueriesFallBackToScanningNames() {
+        assertThat(index.search("sm", CustomerNameIndex.MatchMode.SUBSTRING, 10)).containsExactly(2L);
+    }
+
+    @Test
+    void prefixSearchOnlyMatchesTheStartOfTheName() {
+        assertThat(index.search("jo", CustomerNameIndex.MatchMode.PREFIX, 10)).containsExactly(1L, 4L);
+        assertThat(index.search("doe", CustomerNameIndex.MatchMode.PREFIX, 10)).isEmpty();
+    }
+
+    @Test
+    void resultsAreLimited() {
+        assertThat(index.search("o", CustomerNameIndex.MatchMode.SUBSTRING, 2)).hasSize(2);
+    }
+
+    @Test
+    void updatesAndRemovalsAreApplied() {
+        index.index(order(1L, "Johnny Cash"));
+        index.remove(3L);
+
+        assertThat(index.search("john doe", CustomerNameIndex.MatchMode.SUBSTRING, 10)).containsExactly(4L);
+        assertThat(index.search("johnny", CustomerNameIndex.MatchMode.PREFIX, 10)).containsExactly(1L);
+        assertThat(index.search("johnson", CustomerNameIndex.MatchMode.SUBSTRING, 10)).isEqualTo(List.of());
+    }
+
+    private static OrderResponse order(Long id, String customerName) {
+        OrderResponse order = new OrderResponse();
+        order.setId(id);
+        order.setCustomerName(customerName);
+        return order;
+    }
+}
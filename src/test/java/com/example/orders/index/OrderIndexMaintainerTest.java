@@ -0,0 +1,125 @@
+package com.example.orders.index;
+
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.event.OrderChangeEvent;
+import com.example.orders.event.OrderChangesSubscribedEvent;
+import com.example.orders.service.OrderService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class OrderIndexMaintainerTest {
+
+    private final CustomerNameIndex names = new CustomerNameIndex();
+    private final AmountIndex amounts = new AmountIndex();
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderIndexMaintainer maintainer = new OrderIndexMaintainer(List.of(names, amounts), orderService);
+
+    @Test
+    void changesDuringTheScanWinOverTheRowsItRead() {
+        doAnswer(invocation -> {
+            Consumer<OrderResponse> consumer = invocation.getArgument(0);
+            consumer.accept(order(1L, "John Doe", "10.00"));
+            // Committed while the scan runs: it already read order 1 and has yet to read order 2
+            maintainer.onOrderChange(OrderChangeEvent.upserted(order(1L, "Jane Smith", "20.00")));
+            maintainer.onOrderChange(OrderChangeEvent.deleted(2L));
+            consumer.accept(order(2L, "Bob Johnson", "30.00"));
+            return null;
+        }).when(orderService).streamAllOrders(any());
+
+        maintainer.rebuild();
+
+        assertThat(names.isReady()).isTrue();
+        assertThat(names.search("john", CustomerNameIndex.MatchMode.SUBSTRING, 10)).isEmpty();
+        assertThat(names.search("jane", CustomerNameIndex.MatchMode.PREFIX, 10)).containsExactly(1L);
+        assertThat(amounts.count(0, 100_000)).isEqualTo(1);
+        assertThat(amounts.stats(0, 100_000).sum()).isEqualTo(2000);
+
+        maintainer.onOrderChange(OrderChangeEvent.deleted(1L));
+        assertThat(amounts.count(0, 100_000)).isZero();
+    }
+
+    @Test
+    void dropsRemoteChangesOlderThanTheAppliedVersion() {
+        maintainer.rebuild();
+        maintainer.onOrderChange(OrderChangeEvent.upserted(order(1L, "Jane Smith", "20.00", 1L)));
+        maintainer.onOrderChange(remote(OrderChangeEvent.upserted(order(1L, "John Doe", "10.00", 0L))));
+        maintainer.onOrderChange(OrderChangeEvent.deleted(2L));
+        maintainer.onOrderChange(remote(OrderChangeEvent.upserted(order(2L, "Bob Johnson", "30.00", 0L))));
+
+        assertThat(names.search("john", CustomerNameIndex.MatchMode.SUBSTRING, 10)).isEmpty();
+        assertThat(names.search("jane", CustomerNameIndex.MatchMode.PREFIX, 10)).containsExactly(1L);
+        assertThat(names.search("bob", CustomerNameIndex.MatchMode.PREFIX, 10)).isEmpty();
+    }
+
+    @Test
+    void rebuildsOnceSubscribedAgainAfterStartup() {
+        maintainer.onChangesSubscribed(new OrderChangesSubscribedEvent());
+        verify(orderService, never()).streamAllOrders(any());
+
+        maintainer.rebuildInBackground();
+        maintainer.onChangesSubscribed(new OrderChangesSubscribedEvent());
+        verify(orderService, timeout(5000).times(2)).streamAllOrders(any());
+    }
+
+    @Test
+    void amountsKeepTheNewestVersionAndCatchUpAfterResubscribing() throws InterruptedException {
+        maintainer.rebuild();
+        maintainer.onOrderChange(OrderChangeEvent.upserted(order(1L, "Jane Smith", "20.00", 1L)));
+        maintainer.onOrderChange(remote(OrderChangeEvent.upserted(order(1L, "Jane Smith", "10.00", 0L))));
+        maintainer.onOrderChange(remote(OrderChangeEvent.upserted(order(2L, "Bob Johnson", "30.00", 0L))));
+        maintainer.onOrderChange(OrderChangeEvent.deleted(2L));
+        maintainer.onOrderChange(remote(OrderChangeEvent.upserted(order(2L, "Bob Johnson", "40.00", 1L))));
+
+        assertThat(amounts.count(0, 100_000)).isEqualTo(1);
+        assertThat(amounts.stats(0, 100_000).sum()).isEqualTo(2000);
+
+        // A change to order 1 was broadcast while this instance was not subscribed
+        doAnswer(invocation -> {
+            Consumer<OrderResponse> consumer = invocation.getArgument(0);
+            consumer.accept(order(1L, "Jane Smith", "25.00", 2L));
+            return null;
+        }).when(orderService).streamAllOrders(any());
+        maintainer.rebuildInBackground();
+        maintainer.onChangesSubscribed(new OrderChangesSubscribedEvent());
+
+        // The last rebuild has started scanning, so the index is ready again once it is done
+        verify(orderService, timeout(5000).times(3)).streamAllOrders(any());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!amounts.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(amounts.isReady()).isTrue();
+        assertThat(amounts.count(0, 100_000)).isEqualTo(1);
+        assertThat(amounts.stats(0, 100_000).sum()).isEqualTo(2500);
+    }
+
+    private static OrderChangeEvent remote(OrderChangeEvent event) {
+        event.setRemote(true);
+        return event;
+    }
+
+    private static OrderResponse order(Long id, String customerName, String amount) {
+        return order(id, customerName, amount, null);
+    }
+
+    private static OrderResponse order(Long id, String customerName, String amount, Long version) {
+        OrderResponse order = new OrderResponse();
+        order.setId(id);
+        order.setCustomerName(customerName);
+        order.setAmount(new BigDecimal(amount));
+        order.setVersion(version);
+        return order;
+    }
+}
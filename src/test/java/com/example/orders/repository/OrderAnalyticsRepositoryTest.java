@@ -0,0 +1,67 @@
+package com.example.orders.repository;
+
+import com.example.orders.entity.Order;
+import com.example.orders.repository.OrderAnalyticsRepository.TimeBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class OrderAnalyticsRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @BeforeEach
+    void setUp() {
+        for (int amount = 1; amount <= 10; amount++) {
+            save("Alice", amount);
+        }
+        save("Bob", 100);
+    }
+
+    @Test
+    void summarizesAmountsWithNearestRankPercentiles() {
+        AmountDistribution all = orderRepository.summarizeAmounts(null, null);
+
+        assertThat(all.group()).isNull();
+        assertThat(all.count()).isEqualTo(11);
+        assertThat(all.sum()).isEqualByComparingTo("155");
+        assertThat(all.min()).isEqualByComparingTo("1");
+        assertThat(all.max()).isEqualByComparingTo("100");
+        assertThat(all.p50()).isEqualByComparingTo("6");
+        assertThat(all.p90()).isEqualByComparingTo("10");
+
+        AmountDistribution none = orderRepository.summarizeAmounts(LocalDateTime.now().plusDays(1), null);
+        assertThat(none.count()).isZero();
+        assertThat(none.sum()).isNull();
+    }
+
+    @Test
+    void groupsByCustomerAndByTimeBucket() {
+        List<AmountDistribution> customers = orderRepository.summarizeAmountsByCustomer(null, null, 10);
+        assertThat(customers).extracting(AmountDistribution::group).containsExactly("Bob", "Alice");
+        assertThat(customers.get(1).count()).isEqualTo(10);
+        assertThat(orderRepository.summarizeAmountsByCustomer(null, null, 1)).hasSize(1);
+
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        List<AmountDistribution> days = orderRepository.summarizeAmountsByTime(TimeBucket.DAY, from, null, 10);
+        assertThat(days).isNotEmpty();
+        assertThat(days.stream().mapToLong(AmountDistribution::count).sum()).isEqualTo(11);
+        assertThat(LocalDateTime.parse(days.get(0).group()).toLocalTime()).isEqualTo("00:00");
+    }
+
+    private void save(String customerName, int amount) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setAmount(BigDecimal.valueOf(amount));
+        orderRepository.save(order);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.orders.repository;
+
+import com.example.orders.entity.Order;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReactiveOrderRepositoryTest {
+
+    private ConnectionFactory connectionFactory;
+    private ReactiveOrderRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        String schema = new ClassPathResource("db/migration/V1__create_orders.sql").getContentAsString(StandardCharsets.UTF_8);
+        DatabaseClient client = DatabaseClient.create(connectionFactory);
+        for (String statement : schema.replaceAll("(?m)^--.*$", "").split(";")) {
+            if (!statement.isBlank()) {
+                client.sql(statement).then().block();
+            }
+        }
+        repository = new ReactiveOrderRepository(connectionFactory);
+    }
+
+    @Test
+    void assignsDistinctIdsAcrossSequenceBlocks() {
+        List<Order> first = repository.insertAll(orders(120)).collectList().block();
+        List<Order> second = repository.insertAll(orders(3)).collectList().block();
+
+        List<Long> ids = new ArrayList<>();
+        first.forEach(order -> ids.add(order.getId()));
+        second.forEach(order -> ids.add(order.getId()));
+        assertThat(ids).doesNotHaveDuplicates().allMatch(id -> id > 0);
+        assertThat(first).allMatch(order -> order.getVersion() == 0 && order.getCreatedAt() != null);
+        assertThat(repository.findAllById(ids).collectList().block()).hasSize(123);
+    }
+
+    @Test
+    void rejectsWritesAtAStaleVersion() {
+        Order order = repository.insertAll(orders(1)).blockFirst();
+        Order stale = repository.findById(order.getId()).block();
+
+        order.setAmount(new BigDecimal("20.00"));
+        assertThat(repository.update(order).block().getVersion()).isEqualTo(1);
+
+        stale.setAmount(new BigDecimal("30.00"));
+        assertThatThrownBy(() -> repository.update(stale).block()).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThatThrownBy(() -> repository.delete(stale, LocalDateTime.now()).block())
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(repository.findById(order.getId()).block().getAmount()).isEqualByComparingTo("20.00");
+
+        repository.delete(order, LocalDateTime.now()).block();
+        assertThat(repository.findById(order.getId()).block()).isNull();
+        Long tombstones = DatabaseClient.create(connectionFactory).sql("SELECT COUNT(*) FROM order_tombstones")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block();
+        assertThat(tombstones).isEqualTo(1);
+    }
+
+    private static List<Order> orders(int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setCustomerName("Customer " + i);
+            order.setAmount(new BigDecimal("10.00"));
+            orders.add(order);
+        }
+        return orders;
+    }
+}
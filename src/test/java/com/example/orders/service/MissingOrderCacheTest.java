@@ -0,0 +1,43 @@
+package com.example.orders.service;
+
+import com.example.orders.config.OrderCacheProperties;
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.event.OrderChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MissingOrderCacheTest {
+
+    private final MissingOrderCache cache = new MissingOrderCache(new OrderCacheProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void forgetsMissingIdsOnceTheOrderIsCreated() {
+        cache.markMissing(7L, cache.lookupStarted(7L));
+        assertThat(cache.isMissing(7L)).isTrue();
+
+        cache.onOrderChange(OrderChangeEvent.upserted(order(7L)));
+
+        assertThat(cache.isMissing(7L)).isFalse();
+        cache.onOrderChange(OrderChangeEvent.deleted(8L));
+        assertThat(cache.isMissing(8L)).isTrue();
+    }
+
+    @Test
+    void skipsMissesOfLookupsThatRacedACreation() {
+        long token = cache.lookupStarted(7L);
+
+        // The lookup missed the row, then the creation committed before the miss was recorded
+        cache.onOrderChange(OrderChangeEvent.upserted(order(7L)));
+        cache.markMissing(7L, token);
+
+        assertThat(cache.isMissing(7L)).isFalse();
+    }
+
+    private static OrderResponse order(Long id) {
+        OrderResponse order = new OrderResponse();
+        order.setId(id);
+        return order;
+    }
+}
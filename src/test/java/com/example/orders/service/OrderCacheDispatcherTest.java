@@ -0,0 +1,84 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.OrderResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class OrderCacheDispatcherTest {
+
+    private final CacheService cacheService = mock(CacheService.class);
+    private final OrderCacheDispatcher dispatcher = new OrderCacheDispatcher(cacheService);
+
+    @BeforeEach
+    void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void endTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void writesCoalescedChangesOnlyAfterCommit() {
+        dispatcher.created(List.of(order(1L, "created"), order(2L, "created")));
+        dispatcher.updated(order(3L, "first"));
+        dispatcher.updated(order(3L, "second"));
+        dispatcher.updated(order(1L, "updated"));
+        dispatcher.deleted(2L);
+        verifyNoInteractions(cacheService);
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        var order = inOrder(cacheService);
+        order.verify(cacheService).evictOrder(2L);
+        order.verify(cacheService).cacheOrder(order(3L, "second"));
+        // Created in this transaction, so written after the other changes with the new orders
+        order.verify(cacheService).cacheOrder(order(1L, "updated"));
+        verify(cacheService, never()).cacheOrder(order(3L, "first"));
+        verify(cacheService, never()).cacheOrders(anyList());
+    }
+
+    @Test
+    void discardsChangesOnRollback() {
+        dispatcher.updated(order(1L, "rolled back"));
+        dispatcher.deleted(2L);
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verify(cacheService, never()).cacheOrder(any());
+        verify(cacheService, never()).evictOrder(any());
+        verify(cacheService, never()).cacheOrders(anyList());
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static OrderResponse order(Long id, String customerName) {
+        OrderResponse order = new OrderResponse();
+        order.setId(id);
+        order.setCustomerName(customerName);
+        return order;
+    }
+}
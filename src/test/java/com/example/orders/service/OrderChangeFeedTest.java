@@ -0,0 +1,154 @@
+package com.example.orders.service;
+
+import com.example.orders.config.ChangeFeedProperties;
+import com.example.orders.dto.OrderChange;
+import com.example.orders.dto.OrderChangesResponse;
+import com.example.orders.entity.Order;
+import com.example.orders.entity.OrderTombstone;
+import com.example.orders.repository.OrderRepository;
+import com.example.orders.repository.OrderTombstoneRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Without commit lag, so changes are paged as soon as their write completes
+@DataJpaTest(properties = "change-feed.commit-lag=0s")
+@Import({OrderChangeFeed.class, OrderChangeFeedTest.Config.class})
+class OrderChangeFeedTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(ChangeFeedProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private OrderChangeFeed changeFeed;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void pagesThroughUpsertsAndDeletesInChangeOrder() {
+        LocalDateTime now = LocalDateTime.now();
+        tombstoneRepository.save(new OrderTombstone(900L, now.minusMinutes(2)));
+        tombstoneRepository.save(new OrderTombstone(901L, now.minusMinutes(1)));
+        Long first = save("Alice").getId();
+        Long second = save("Bob").getId();
+
+        OrderChangesResponse page = changeFeed.getChanges(null, 3);
+        assertThat(page.getChanges()).extracting(OrderChange::getType, OrderChange::getId).containsExactly(
+                tuple(OrderChange.Type.DELETE, 900L),
+                tuple(OrderChange.Type.DELETE, 901L),
+                tuple(OrderChange.Type.UPSERT, first));
+        assertThat(page.isHasMore()).isTrue();
+
+        OrderChangesResponse next = changeFeed.getChanges(page.getNextCursor(), 3);
+        assertThat(next.getChanges()).extracting(OrderChange::getId).containsExactly(second);
+        assertThat(next.isHasMore()).isFalse();
+
+        OrderChangesResponse idle = changeFeed.getChanges(next.getNextCursor(), 3);
+        assertThat(idle.getChanges()).isEmpty();
+        assertThat(idle.getNextCursor()).isEqualTo(next.getNextCursor());
+    }
+
+    @Test
+    void holdsBackChangesOfOpenWritesAndRejectsExpiredCursors() {
+        tombstoneRepository.save(new OrderTombstone(900L, LocalDateTime.now().minusMinutes(1)));
+        changeFeed.beginWrite();
+        save("Alice");
+
+        // The order is stamped after the open write started, so it may still be uncommitted
+        assertThat(changeFeed.getChanges(null, 10).getChanges()).extracting(OrderChange::getId).containsExactly(900L);
+
+        String expired = new OrderChangeFeed.Cursor(LocalDateTime.now().minusDays(8), 1).toString();
+        assertThatThrownBy(() -> changeFeed.getChanges(expired, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> changeFeed.getChanges("not-a-cursor", 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void writesOutsideSpringTransactionsHoldBackChangesUntilClosed() {
+        OrderChangeFeed.OpenWrite write = changeFeed.openWrite();
+        Long id = save("Alice").getId();
+
+        assertThat(changeFeed.getChanges(null, 10).getChanges()).isEmpty();
+
+        write.close();
+        write.close();
+        assertThat(changeFeed.getChanges(null, 10).getChanges()).extracting(OrderChange::getId).containsExactly(id);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void deliversWritesCommittedLateOnAnotherInstance() throws Exception {
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setCommitLag(Duration.ofSeconds(1));
+        OrderChangeFeed instanceA = new OrderChangeFeed(orderRepository, tombstoneRepository, properties);
+        OrderChangeFeed instanceB = new OrderChangeFeed(orderRepository, tombstoneRepository, properties);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch stamped = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        try {
+            // Instance B stamps an order first but commits it only after instance A committed a later one
+            CompletableFuture<Long> late = CompletableFuture.supplyAsync(() -> transaction.execute(status -> {
+                instanceB.beginWrite();
+                Long id = save("Late").getId();
+                orderRepository.flush();
+                stamped.countDown();
+                try {
+                    commit.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return id;
+            }));
+            stamped.await();
+            Long early = transaction.execute(status -> {
+                instanceA.beginWrite();
+                return save("Early").getId();
+            });
+
+            CompletableFuture<OrderChangesResponse> page = instanceA.poll(null, 10, Duration.ofSeconds(10));
+            assertThat(page).isNotDone();
+            commit.countDown();
+
+            assertThat(page.get(10, TimeUnit.SECONDS).getChanges()).extracting(OrderChange::getId)
+                    .containsExactly(late.get(10, TimeUnit.SECONDS), early);
+        } finally {
+            commit.countDown();
+            instanceA.destroy();
+            instanceB.destroy();
+            orderRepository.deleteAll();
+        }
+    }
+
+    private Order save(String customerName) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setAmount(BigDecimal.TEN);
+        return orderRepository.save(order);
+    }
+}
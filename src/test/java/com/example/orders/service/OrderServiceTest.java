@@ -0,0 +1,141 @@
+package com.example.orders.service;
+
+import com.example.orders.config.OrderCacheProperties;
+import com.example.orders.dto.BatchOrderResult;
+import com.example.orders.dto.OrderJson;
+import com.example.orders.dto.OrderLookupResponse;
+import com.example.orders.dto.OrderRequest;
+import com.example.orders.dto.OrderResponse;
+import com.example.orders.entity.Order;
+import com.example.orders.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final CacheService cacheService = mock(CacheService.class);
+    private final MissingOrderCache missingOrderCache = new MissingOrderCache(new OrderCacheProperties(), new SimpleMeterRegistry());
+    private final OrderService orderService = new OrderService(orderRepository, cacheService, missingOrderCache,
+            null, null, null, null, null, null, null, null);
+
+    @Test
+    void rejectsPagesAndAmountsBeyondWhatTheIndexCanAddress() {
+        assertThatCode(() -> OrderService.validatePage(2_147_483, 1000)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> OrderService.validatePage(Integer.MAX_VALUE, 1000)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThatCode(() -> OrderService.validateAmountRange(new BigDecimal("-99999999.99"), new BigDecimal("99999999.99")))
+                .doesNotThrowAnyException();
+        assertThatThrownBy(() -> OrderService.validateAmountRange(BigDecimal.ZERO, new BigDecimal("1e30")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> OrderService.validateAmountRange(new BigDecimal("-1e30"), BigDecimal.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void lookupReturnsOrdersInRequestOrderWithDuplicatesAndMissingIds() {
+        Map<Long, Long> generations = Map.of(2L, 5L, 3L, 7L);
+        when(cacheService.getCachedOrders(List.of(3L, 1L, 2L))).thenReturn(new HashMap<>(Map.of(1L, json(1L))));
+        when(cacheService.getWriteGenerations(List.of(3L, 2L))).thenReturn(generations);
+        when(orderRepository.findAllById(List.of(3L, 2L))).thenReturn(List.of(order(3L)));
+        when(cacheService.backfillOrders(anyList(), anyMap())).thenAnswer(invocation -> {
+            List<OrderResponse> loaded = invocation.getArgument(0);
+            return loaded.stream().map(order -> json(order.getId())).toList();
+        });
+
+        OrderLookupResponse response = orderService.getOrdersByIds(List.of(3L, 1L, 2L, 3L, 1L));
+
+        assertThat(response.getOrders()).extracting(OrderJson::getId).containsExactly(3L, 1L, 3L, 1L);
+        assertThat(response.getMissingIds()).containsExactly(2L);
+        assertThat(missingOrderCache.isMissing(2L)).isTrue();
+        // Missing IDs do not count towards the hot set
+        verify(cacheService).recordAccess(1L);
+        verify(cacheService).recordAccess(3L);
+        verify(cacheService, never()).recordAccess(2L);
+
+        // Only the misses are read and backfilled, with generations taken before the database read
+        InOrder order = inOrder(cacheService, orderRepository);
+        order.verify(cacheService).getWriteGenerations(List.of(3L, 2L));
+        order.verify(orderRepository).findAllById(List.of(3L, 2L));
+        order.verify(cacheService).backfillOrders(any(), eq(generations));
+    }
+
+    @Test
+    void lookupRejectsEmptyOversizedAndNullIds() {
+        assertThatThrownBy(() -> orderService.getOrdersByIds(List.of())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderService.getOrdersByIds(LongStream
+                .rangeClosed(1, OrderService.MAX_LOOKUP_IDS + 1).boxed().toList()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderService.getOrdersByIds(Arrays.asList(1L, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void batchReportsItemsTheOrdersTableCannotHoldAsInvalid() {
+        OrderService batchService = new OrderService(orderRepository, cacheService, missingOrderCache,
+                mock(OrderCacheDispatcher.class), mock(OrderChangeFeed.class), mock(EntityManager.class),
+                Validation.buildDefaultValidatorFactory().getValidator(), null, null,
+                mock(ApplicationEventPublisher.class), null);
+
+        List<BatchOrderResult> results = batchService.createOrders(List.of(
+                request("Alice", "10.00"),
+                request("x".repeat(101), "10.00"),
+                request("Bob", "0.001"),
+                request("Carol", "100000000")), 0);
+
+        assertThat(results).extracting(BatchOrderResult::getIndex, BatchOrderResult::getStatus).containsExactly(
+                tuple(0, BatchOrderResult.Status.CREATED),
+                tuple(1, BatchOrderResult.Status.INVALID),
+                tuple(2, BatchOrderResult.Status.INVALID),
+                tuple(3, BatchOrderResult.Status.INVALID));
+        assertThat(results.get(1).getErrors()).singleElement().asString().startsWith("customerName:");
+        assertThat(results.get(2).getErrors()).singleElement().asString().startsWith("amount:");
+        assertThat(results.get(3).getErrors()).singleElement().asString().startsWith("amount:");
+        assertThat(results.get(0).getOrder().getCustomerName()).isEqualTo("Alice");
+        verify(orderRepository).saveAll(anyList());
+    }
+
+    private static OrderRequest request(String customerName, String amount) {
+        OrderRequest request = new OrderRequest();
+        request.setCustomerName(customerName);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerName("Customer " + id);
+        order.setAmount(new BigDecimal("10.00"));
+        return order;
+    }
+
+    private static OrderJson json(Long id) {
+        return new OrderJson(id, 0L, ("{\"id\":" + id + "}").getBytes());
+    }
+}
@@ -0,0 +1,467 @@
+package com.example.orders.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal in-process Redis stand-in speaking RESP2 over a real socket, so the application's
+ * Lettuce client, serializers and pipelines are exercised unchanged. It supports the string,
+ * key and pub/sub commands the service uses, and can inject latency or failures to simulate
+ * a slow or broken Redis.
+ */
+public class FakeRedisServer implements Closeable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+    private final Map<String, Set<Connection>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = new CopyOnWriteArraySet<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ServerSocket serverSocket;
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile boolean failing;
+
+    private record Entry(byte[] value, long expiresAtMillis) {
+
+        boolean isExpired() {
+            return expiresAtMillis > 0 && System.currentTimeMillis() >= expiresAtMillis;
+        }
+    }
+
+    public FakeRedisServer() throws IOException {
+        this(0);
+    }
+
+    public FakeRedisServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        executor.submit(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Delay every command reply by the given duration
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Answer every data command with an error reply while enabled
+     */
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    /**
+     * Drop every open client connection, as a Redis restart or network partition would
+     */
+    public void dropConnections() {
+        connections.forEach(Connection::close);
+    }
+
+    public void flushAll() {
+        data.clear();
+    }
+
+    public int size() {
+        data.values().removeIf(Entry::isExpired);
+        return data.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                executor.submit(connection::serve);
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    }
+
+    private final class Connection implements Closeable {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final Set<String> channels = ConcurrentHashMap.newKeySet();
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        private void serve() {
+            try {
+                while (true) {
+                    List<byte[]> command = readCommand();
+                    if (command == null) {
+                        break;
+                    }
+                    Duration delay = latency;
+                    if (!delay.isZero()) {
+                        Thread.sleep(delay);
+                    }
+                    synchronized (out) {
+                        execute(command);
+                        if (in.available() == 0) {
+                            // Flush once per burst so pipelined commands share a write
+                            out.flush();
+                        }
+                    }
+                }
+            } catch (IOException | InterruptedException ex) {
+                // Client went away or the server is shutting down
+            } finally {
+                close();
+            }
+        }
+
+        private void execute(List<byte[]> command) throws IOException {
+            String name = string(command.get(0)).toUpperCase();
+            if (failing && !name.equals("QUIT")) {
+                writeError("ERR injected failure");
+                return;
+            }
+            switch (name) {
+                case "PING" -> writeSimple("PONG");
+                case "HELLO" -> writeError("ERR unknown command 'HELLO'");
+                case "CLIENT", "SELECT", "FLUSHDB", "FLUSHALL" -> {
+                    if (name.startsWith("FLUSH")) {
+                        data.clear();
+                    }
+                    writeSimple("OK");
+                }
+                case "QUIT" -> {
+                    writeSimple("OK");
+                    out.flush();
+                    close();
+                }
+                case "GET" -> writeBulk(get(string(command.get(1))));
+                case "SET" -> set(command);
+                case "SETEX", "PSETEX" -> {
+                    long ttl = Long.parseLong(string(command.get(2)));
+                    long millis = name.equals("SETEX") ? ttl * 1000 : ttl;
+                    data.put(string(command.get(1)), new Entry(command.get(3), System.currentTimeMillis() + millis));
+                    writeSimple("OK");
+                }
+                case "MGET" -> {
+                    writeArrayHeader(command.size() - 1);
+                    for (int i = 1; i < command.size(); i++) {
+                        writeBulk(get(string(command.get(i))));
+                    }
+                }
+                case "DEL", "UNLINK" -> {
+                    long removed = 0;
+                    for (int i = 1; i < command.size(); i++) {
+                        Entry entry = data.remove(string(command.get(i)));
+                        if (entry != null && !entry.isExpired()) {
+                            removed++;
+                        }
+                    }
+                    writeInteger(removed);
+                }
+                case "EXISTS" -> {
+                    long found = 0;
+                    for (int i = 1; i < command.size(); i++) {
+                        if (get(string(command.get(i))) != null) {
+                            found++;
+                        }
+                    }
+                    writeInteger(found);
+                }
+                case "PEXPIRE", "EXPIRE" -> {
+                    String key = string(command.get(1));
+                    byte[] value = get(key);
+                    if (value == null) {
+                        writeInteger(0);
+                    } else {
+                        long ttl = Long.parseLong(string(command.get(2)));
+                        long millis = name.equals("EXPIRE") ? ttl * 1000 : ttl;
+                        data.put(key, new Entry(value, System.currentTimeMillis() + millis));
+                        writeInteger(1);
+                    }
+                }
+                case "PTTL", "TTL" -> {
+                    Entry entry = data.get(string(command.get(1)));
+                    if (entry == null || entry.isExpired()) {
+                        writeInteger(-2);
+                    } else if (entry.expiresAtMillis() == 0) {
+                        writeInteger(-1);
+                    } else {
+                        long remaining = entry.expiresAtMillis() - System.currentTimeMillis();
+                        writeInteger(name.equals("TTL") ? remaining / 1000 : remaining);
+                    }
+                }
+                case "KEYS" -> writeKeys(matchingKeys(string(command.get(1))));
+                case "SCAN" -> {
+                    String pattern = "*";
+                    for (int i = 2; i + 1 < command.size(); i += 2) {
+                        if (string(command.get(i)).equalsIgnoreCase("MATCH")) {
+                            pattern = string(command.get(i + 1));
+                        }
+                    }
+                    writeArrayHeader(2);
+                    writeBulk("0".getBytes(StandardCharsets.US_ASCII));
+                    writeKeys(matchingKeys(pattern));
+                }
+                case "DBSIZE" -> writeInteger(size());
+                case "INFO" -> writeBulk(("# Memory\r\nused_memory:" + usedMemory() + "\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                case "PUBLISH" -> writeInteger(publish(string(command.get(1)), command.get(2)));
+                case "SUBSCRIBE" -> {
+                    for (int i = 1; i < command.size(); i++) {
+                        String channel = string(command.get(i));
+                        channels.add(channel);
+                        subscribers.computeIfAbsent(channel, key -> new CopyOnWriteArraySet<>()).add(this);
+                        writeArrayHeader(3);
+                        writeBulk("subscribe".getBytes(StandardCharsets.US_ASCII));
+                        writeBulk(command.get(i));
+                        writeInteger(channels.size());
+                    }
+                }
+                case "UNSUBSCRIBE" -> {
+                    List<String> targets = new ArrayList<>();
+                    for (int i = 1; i < command.size(); i++) {
+                        targets.add(string(command.get(i)));
+                    }
+                    if (targets.isEmpty()) {
+                        targets.addAll(channels);
+                    }
+                    for (String channel : targets) {
+                        channels.remove(channel);
+                        Set<Connection> channelSubscribers = subscribers.get(channel);
+                        if (channelSubscribers != null) {
+                            channelSubscribers.remove(this);
+                        }
+                        writeArrayHeader(3);
+                        writeBulk("unsubscribe".getBytes(StandardCharsets.US_ASCII));
+                        writeBulk(channel.getBytes(StandardCharsets.ISO_8859_1));
+                        writeInteger(channels.size());
+                    }
+                }
+                default -> writeError("ERR unknown command '" + name + "'");
+            }
+        }
+
+        private void set(List<byte[]> command) throws IOException {
+            String key = string(command.get(1));
+            long expiresAt = 0;
+            boolean onlyIfAbsent = false;
+            boolean onlyIfPresent = false;
+            for (int i = 3; i < command.size(); i++) {
+                String option = string(command.get(i)).toUpperCase();
+                switch (option) {
+                    case "EX" -> expiresAt = System.currentTimeMillis() + Long.parseLong(string(command.get(++i))) * 1000;
+                    case "PX" -> expiresAt = System.currentTimeMillis() + Long.parseLong(string(command.get(++i)));
+                    case "NX" -> onlyIfAbsent = true;
+                    case "XX" -> onlyIfPresent = true;
+                    default -> {
+                    }
+                }
+            }
+            boolean exists = get(key) != null;
+            if ((onlyIfAbsent && exists) || (onlyIfPresent && !exists)) {
+                writeBulk(null);
+                return;
+            }
+            data.put(key, new Entry(command.get(2), expiresAt));
+            writeSimple("OK");
+        }
+
+        private List<byte[]> readCommand() throws IOException {
+            int marker = in.read();
+            if (marker == -1) {
+                return null;
+            }
+            if (marker != '*') {
+                throw new IOException("Only RESP arrays are supported");
+            }
+            int count = Integer.parseInt(readLine());
+            List<byte[]> parts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (in.read() != '$') {
+                    throw new IOException("Expected a bulk string");
+                }
+                int length = Integer.parseInt(readLine());
+                byte[] part = in.readNBytes(length);
+                if (part.length < length) {
+                    throw new EOFException();
+                }
+                in.readNBytes(2);
+                parts.add(part);
+            }
+            return parts;
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != '\r') {
+                if (b == -1) {
+                    throw new EOFException();
+                }
+                line.write(b);
+            }
+            in.read();
+            return line.toString(StandardCharsets.US_ASCII);
+        }
+
+        private void deliver(String channel, byte[] message) {
+            synchronized (out) {
+                try {
+                    writeArrayHeader(3);
+                    writeBulk("message".getBytes(StandardCharsets.US_ASCII));
+                    writeBulk(channel.getBytes(StandardCharsets.ISO_8859_1));
+                    writeBulk(message);
+                    out.flush();
+                } catch (IOException ex) {
+                    close();
+                }
+            }
+        }
+
+        private void writeKeys(List<String> keys) throws IOException {
+            writeArrayHeader(keys.size());
+            for (String key : keys) {
+                writeBulk(key.getBytes(StandardCharsets.ISO_8859_1));
+            }
+        }
+
+        private void writeSimple(String value) throws IOException {
+            out.write(('+' + value).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+        }
+
+        private void writeError(String message) throws IOException {
+            out.write(('-' + message).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+        }
+
+        private void writeInteger(long value) throws IOException {
+            out.write((":" + value).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+        }
+
+        private void writeArrayHeader(int size) throws IOException {
+            out.write(("*" + size).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+        }
+
+        private void writeBulk(byte[] value) throws IOException {
+            if (value == null) {
+                out.write("$-1".getBytes(StandardCharsets.US_ASCII));
+                out.write(CRLF);
+                return;
+            }
+            out.write(("$" + value.length).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+            out.write(value);
+            out.write(CRLF);
+        }
+
+        @Override
+        public void close() {
+            connections.remove(this);
+            for (String channel : channels) {
+                Set<Connection> channelSubscribers = subscribers.get(channel);
+                if (channelSubscribers != null) {
+                    channelSubscribers.remove(this);
+                }
+            }
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // Already closed
+            }
+        }
+    }
+
+    private byte[] get(String key) {
+        Entry entry = data.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    private long publish(String channel, byte[] message) {
+        Set<Connection> channelSubscribers = subscribers.getOrDefault(channel, Set.of());
+        channelSubscribers.forEach(connection -> connection.deliver(channel, message));
+        return channelSubscribers.size();
+    }
+
+    private List<String> matchingKeys(String glob) {
+        Pattern pattern = Pattern.compile(globToRegex(glob));
+        List<String> keys = new ArrayList<>();
+        data.forEach((key, entry) -> {
+            if (!entry.isExpired() && pattern.matcher(key).matches()) {
+                keys.add(key);
+            }
+        });
+        return keys;
+    }
+
+    private long usedMemory() {
+        long bytes = 0;
+        for (Map.Entry<String, Entry> entry : data.entrySet()) {
+            bytes += entry.getKey().length() + entry.getValue().value().length;
+        }
+        return bytes;
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return regex.toString();
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
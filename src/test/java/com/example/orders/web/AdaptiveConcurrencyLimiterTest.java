@@ -0,0 +1,86 @@
+package com.example.orders.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 1.5);
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksWhenItClimbs() {
+        runWindows(10, Duration.ofMillis(2));
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        runWindows(20, Duration.ofMillis(20));
+
+        assertThat(limiter.getLimit()).isLessThan(grown / 2);
+    }
+
+    @Test
+    void growsUnderLowPriorityLoadAlone() {
+        // Low priority requests fill only 30% of the limit, yet are turned away when they do
+        runWindows(10, Duration.ofMillis(2), 0.3);
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        runWindows(20, Duration.ofMillis(20), 0.3);
+
+        assertThat(limiter.getLimit()).isLessThan(grown);
+    }
+
+    @Test
+    void streamedResponsesAreNoLatencySamples() {
+        runWindows(10, Duration.ofMillis(2));
+        int grown = limiter.getLimit();
+
+        // Exports that stream for minutes must not read as overload
+        for (int i = 0; i < 5 * AdaptiveConcurrencyLimiter.WINDOW_SAMPLES; i++) {
+            assertThat(limiter.tryAcquire(0.3)).isTrue();
+            limiter.releaseUnmeasured(false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(grown);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shedsLowerPrioritiesFirst() {
+        for (int i = 0; i < 6; i++) {
+            assertThat(limiter.tryAcquire(1.0)).isTrue();
+        }
+
+        // 30% of 20 is taken, so low priority requests are turned away but lookups still fit
+        assertThat(limiter.tryAcquire(0.3)).isFalse();
+        assertThat(limiter.tryAcquire(0.8)).isTrue();
+        assertThat(limiter.tryAcquire(1.0)).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(8);
+    }
+
+    private void runWindows(int windows, Duration latency) {
+        runWindows(windows, latency, 1.0);
+    }
+
+    /**
+     * Keeps the limiter at the given share of its limit for whole windows, each request taking the given latency
+     */
+    private void runWindows(int windows, Duration latency, double share) {
+        for (int w = 0; w < windows; w++) {
+            int released = 0;
+            while (released < AdaptiveConcurrencyLimiter.WINDOW_SAMPLES) {
+                int acquired = 0;
+                while (limiter.tryAcquire(share)) {
+                    acquired++;
+                }
+                for (int i = 0; i < acquired; i++) {
+                    limiter.release(latency.toNanos(), false);
+                }
+                released += acquired;
+            }
+        }
+    }
+}